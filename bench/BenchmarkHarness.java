@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.Locale;
+
+// Small JMH-style harness. Each benchmark gets warm-up iterations that are not
+// counted, then measured iterations; an iteration calls the body in a loop for
+// a fixed time and records the average ns per call. Results are consumed by a
+// sink so the JIT cannot drop the work as dead code.
+class BenchmarkHarness {
+    // One benchmarked operation; its result is consumed by the sink
+    interface Body {
+        Object run() throws Exception;
+    }
+
+    static class Result {
+        private final String name;
+        private final double meanNanos;
+        private final double stdDevNanos;
+        private final double minNanos;
+        private final long operations;
+
+        Result(String name, double meanNanos, double stdDevNanos, double minNanos, long operations) {
+            this.name = name;
+            this.meanNanos = meanNanos;
+            this.stdDevNanos = stdDevNanos;
+            this.minNanos = minNanos;
+            this.operations = operations;
+        }
+
+        public String getName() { return name; }
+        public double getMeanNanos() { return meanNanos; }
+        public double getStdDevNanos() { return stdDevNanos; }
+        public double getMinNanos() { return minNanos; }
+        public long getOperations() { return operations; }
+    }
+
+    private final int warmupIterations;
+    private final int measureIterations;
+    private final long iterationNanos;
+    private final String filter;
+    private final ArrayList<Result> results = new ArrayList<>();
+    private int sink;
+
+    public BenchmarkHarness(int warmupIterations, int measureIterations, long iterationMillis, String filter) {
+        this.warmupIterations = warmupIterations;
+        this.measureIterations = measureIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.filter = filter;
+    }
+
+    // Run a benchmark unless its name does not contain the filter
+    public void run(String name, Body body) throws Exception {
+        if (filter != null && !name.contains(filter)) {
+            return;
+        }
+        System.out.println("▶️ " + name);
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(body);
+        }
+
+        double[] samples = new double[measureIterations];
+        long operations = 0;
+        for (int i = 0; i < measureIterations; i++) {
+            long[] timed = iteration(body);
+            samples[i] = (double) timed[0] / timed[1];
+            operations += timed[1];
+        }
+
+        double mean = 0;
+        double min = Double.MAX_VALUE;
+        for (double sample : samples) {
+            mean += sample;
+            min = Math.min(min, sample);
+        }
+        mean /= samples.length;
+        double variance = 0;
+        for (double sample : samples) {
+            variance += (sample - mean) * (sample - mean);
+        }
+        double stdDev = samples.length > 1 ? Math.sqrt(variance / (samples.length - 1)) : 0;
+        results.add(new Result(name, mean, stdDev, min, operations));
+    }
+
+    // Returns { elapsed nanos, calls }
+    private long[] iteration(Body body) throws Exception {
+        long calls = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            Object result = body.run();
+            sink += result == null ? 0 : result.hashCode();
+            calls++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[] { elapsed, calls };
+    }
+
+    public void printResults() {
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-40s %14s %12s %14s %10s",
+                "Benchmark", "Mean ns/op", "± StdDev", "Min ns/op", "Ops"));
+        for (Result result : results) {
+            System.out.println(String.format(Locale.ROOT, "%-40s %14.1f %12.1f %14.1f %10d",
+                    result.getName(), result.getMeanNanos(), result.getStdDevNanos(),
+                    result.getMinNanos(), result.getOperations()));
+        }
+        if (sink == 42) {
+            System.out.println(); // Keeps the sink alive
+        }
+    }
+}
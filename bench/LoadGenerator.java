@@ -0,0 +1,391 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Headless rush-hour simulation: a day of orders against the seeded menu, taken
+// by N simulated terminals that each build an Order, take the payment, print the
+// receipt and check out as the app does (no Swing): the order is appended to the
+// order journal and PersistenceExecutor's writer projects it into the tables.
+//
+// Arrivals follow the warung's day: quiet mornings, a lunch and a dinner rush,
+// and customers arriving in groups, so orders come in bursts. A generated day
+// can be recorded to CSV and replayed later, e.g. to compare two builds or to
+// run last Saturday again with more terminals.
+//
+// Run with: mvn -P bench verify -Dbench.main=LoadGenerator
+// Options (system properties):
+//   -Dload.terminals=<n>       simulated terminals (default 4)
+//   -Dload.orders=<n>          orders in the generated day (default 3000)
+//   -Dload.speedup=<x>         simulated seconds per real second; 0 = no pauses,
+//                              to find the most the database can take (default 720)
+//   -Dload.seed=<n>            random seed of the generated day
+//   -Dload.record=<file.csv>   write the generated day to a CSV file
+//   -Dload.replay=<file.csv>   replay a recorded day instead of generating one
+//   -Dload.db=<file>           database to fill; default is a temporary file
+//
+// CSV format: offset_ms,payment_method,items with items as "menuItemId:qty ..."
+// and offset_ms counted from opening time.
+class LoadGenerator {
+    private static final int OPENING_HOUR = 10;
+    // Share of the day's orders per hour from opening (10:00) to closing (22:00)
+    private static final int[] HOURLY_WEIGHTS = { 3, 5, 13, 15, 7, 4, 3, 4, 9, 13, 8, 4 };
+    private static final String[] PAYMENT_METHODS = { "Cash", "E-Wallet", "Debit Card" };
+    private static final int[] PAYMENT_WEIGHTS = { 50, 35, 15 };
+    private static final int STOCK_FOR_RUN = 10_000_000;
+
+    // One customer order arriving at a terminal
+    static class Arrival {
+        private final long offsetMillis;
+        private final String paymentMethod;
+        private final int[] menuItemIds;
+        private final int[] quantities;
+        private long dueNanos;
+
+        Arrival(long offsetMillis, String paymentMethod, int[] menuItemIds, int[] quantities) {
+            this.offsetMillis = offsetMillis;
+            this.paymentMethod = paymentMethod;
+            this.menuItemIds = menuItemIds;
+            this.quantities = quantities;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int terminals = Integer.getInteger("load.terminals", 4);
+        int orders = Integer.getInteger("load.orders", 3000);
+        int speedup = Integer.getInteger("load.speedup", 720);
+        long seed = Long.getLong("load.seed", 42);
+        String recordFile = option("load.record");
+        String replayFile = option("load.replay");
+        String dbPath = option("load.db");
+
+        File dbFile = dbPath != null ? new File(dbPath) : File.createTempFile("cektipis-load", ".db");
+        System.setProperty("cektipis.db", dbFile.getAbsolutePath());
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        OrderJournal journal = null;
+        try {
+            dbManager.initializeDatabase();
+            dbManager.seedMenuItems();
+            journal = OrderJournal.open(dbManager, dbManager.getJournalFile());
+            ArrayList<MenuItem> menu = dbManager.loadMenuItems();
+            // Capacity test, not a stock test: nothing may sell out during the run
+            for (MenuItem item : menu) {
+                item.setStock(STOCK_FOR_RUN);
+                dbManager.updateStock(item.getId(), STOCK_FOR_RUN);
+            }
+
+            List<Arrival> day = replayFile != null
+                    ? readDay(Paths.get(replayFile).toFile())
+                    : generateDay(menu, orders, new Random(seed));
+            if (recordFile != null) {
+                writeDay(new File(recordFile), day);
+                System.out.println("📝 Recorded " + day.size() + " orders to " + recordFile);
+            }
+
+            System.out.println("🚦 " + day.size() + " orders, " + terminals + " terminals, speedup "
+                    + (speedup == 0 ? "none (as fast as possible)" : speedup + "x"));
+            run(dbManager, journal, menu, day, terminals, speedup, dbFile);
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+            dbManager.close();
+            if (dbPath == null) {
+                for (String suffix : new String[] { "", "-wal", "-shm" }) {
+                    new File(dbFile.getPath() + suffix).delete();
+                }
+                dbManager.getJournalFile().delete();
+                for (File segment : OrderJournal.segmentFiles(dbManager.getJournalFile())) {
+                    segment.delete();
+                }
+            }
+        }
+    }
+
+    // Empty values count as unset, since the Maven profile always passes every option
+    private static String option(String name) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static void run(DatabaseManager dbManager, OrderJournal journal, ArrayList<MenuItem> menu,
+            List<Arrival> day, int terminals, int speedup, File dbFile) throws InterruptedException {
+        HashMap<Integer, MenuItem> menuById = new HashMap<>();
+        for (MenuItem item : menu) {
+            menuById.put(item.getId(), item);
+        }
+
+        BlockingQueue<Arrival> waiting = new ArrayBlockingQueue<>(Math.max(1, day.size()));
+        long[] checkoutNanos = new long[day.size()];
+        long[] responseNanos = new long[day.size()];
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Arrival done = new Arrival(0, null, new int[0], new int[0]);
+        // Callbacks run on the terminal or writer thread that completes them
+        PersistenceExecutor persistence = new PersistenceExecutor(dbManager, journal, Runnable::run);
+
+        Thread[] workers = new Thread[terminals];
+        for (int t = 0; t < terminals; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    for (Arrival arrival = waiting.take(); arrival != done; arrival = waiting.take()) {
+                        long start = System.nanoTime();
+                        if (checkout(persistence, menuById, arrival)) {
+                            long end = System.nanoTime();
+                            int n = completed.getAndIncrement();
+                            checkoutNanos[n] = end - start;
+                            responseNanos[n] = end - arrival.dueNanos;
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "terminal-" + (t + 1));
+            workers[t].start();
+        }
+
+        long startSize = databaseSize(dbFile);
+        long startNanos = System.nanoTime();
+        int reportedHour = -1;
+        for (Arrival arrival : day) {
+            long due = startNanos + (speedup == 0 ? 0 : arrival.offsetMillis * 1_000_000L / speedup);
+            long pause = due - System.nanoTime();
+            if (pause > 0) {
+                Thread.sleep(pause / 1_000_000L, (int) (pause % 1_000_000L));
+            }
+            arrival.dueNanos = due;
+            waiting.put(arrival);
+
+            int hour = OPENING_HOUR + (int) (arrival.offsetMillis / 3_600_000L);
+            if (speedup > 0 && hour != reportedHour) {
+                reportedHour = hour;
+                System.out.println(String.format(Locale.ROOT, "🕐 %02d:00  %6d orders done  db %,d KB",
+                        hour, completed.get(), databaseSize(dbFile) / 1024));
+            }
+        }
+        for (int t = 0; t < terminals; t++) {
+            waiting.put(done);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long drainStart = System.nanoTime();
+        persistence.shutdown(); // Waits for the writer to project what is still queued
+        long drainNanos = System.nanoTime() - drainStart;
+
+        int n = completed.get();
+        long endSize = databaseSize(dbFile);
+        System.out.println();
+        System.out.println("📊 Load test results");
+        System.out.println(String.format(Locale.ROOT, "  Completed checkouts : %,d (%d failed)", n, failed.get()));
+        System.out.println(String.format(Locale.ROOT, "  Wall time           : %.1f s", elapsedNanos / 1e9));
+        System.out.println(String.format(Locale.ROOT, "  Throughput          : %.1f checkouts/s", n / (elapsedNanos / 1e9)));
+        printLatency("Checkout latency    ", checkoutNanos, n);
+        printLatency("Arrival to saved    ", responseNanos, n);
+        System.out.println(String.format(Locale.ROOT, "  Projection backlog  : %.1f ms after the last checkout",
+                drainNanos / 1e6));
+        System.out.println(String.format(Locale.ROOT, "  Database size       : %,d KB -> %,d KB (%,d bytes/order)",
+                startSize / 1024, endSize / 1024, n == 0 ? 0 : (endSize - startSize) / n));
+    }
+
+    // One terminal serving one customer: cart, payment, receipt, journaled checkout
+    private static boolean checkout(PersistenceExecutor persistence, HashMap<Integer, MenuItem> menuById,
+            Arrival arrival) {
+        Order order = new Order();
+        try {
+            for (int i = 0; i < arrival.menuItemIds.length; i++) {
+                MenuItem item = menuById.get(arrival.menuItemIds[i]);
+                if (item != null) {
+                    order.addItem(item, arrival.quantities[i]);
+                }
+            }
+            if (order.getItems().isEmpty()) {
+                return false;
+            }
+            long amount = "Cash".equals(arrival.paymentMethod)
+                    ? (order.getGrandTotal() + 9_999) / 10_000 * 10_000 // Paid with round notes
+                    : order.getGrandTotal();
+            order.processPayment(amount, arrival.paymentMethod);
+            order.getReceipt();
+            return persistence.submitCheckout(order, orderId -> {}, e -> {});
+        } catch (RuntimeException e) {
+            order.releaseReservations();
+            return false;
+        }
+    }
+
+    private static void printLatency(String label, long[] nanos, int count) {
+        if (count == 0) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        System.out.println(String.format(Locale.ROOT, "  %s: p50 %.2f ms  p99 %.2f ms  max %.2f ms", label,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted[count - 1] / 1e6));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.round(p * (sorted.length - 1))];
+    }
+
+    private static long databaseSize(File dbFile) {
+        return dbFile.length() + new File(dbFile.getPath() + "-wal").length();
+    }
+
+    // A generated day: orders spread over the hours by HOURLY_WEIGHTS, arriving in
+    // groups of one to four within a few seconds of each other
+    static List<Arrival> generateDay(ArrayList<MenuItem> menu, int orders, Random random) {
+        int[] itemWeights = itemWeights(menu);
+        int weightSum = Arrays.stream(HOURLY_WEIGHTS).sum();
+        ArrayList<Arrival> day = new ArrayList<>(orders);
+
+        int weightSoFar = 0;
+        for (int hour = 0; hour < HOURLY_WEIGHTS.length; hour++) {
+            // Rounded on the running total, so the hours add up to exactly the requested orders
+            int before = (int) Math.round((double) orders * weightSoFar / weightSum);
+            weightSoFar += HOURLY_WEIGHTS[hour];
+            int hourOrders = (int) Math.round((double) orders * weightSoFar / weightSum) - before;
+            double meanGapMillis = 3_600_000.0 / Math.max(1, hourOrders / 2.5);
+            long time = hour * 3_600_000L;
+            int made = 0;
+            while (made < hourOrders) {
+                time += (long) (-Math.log(1 - random.nextDouble()) * meanGapMillis);
+                int group = Math.min(1 + random.nextInt(4), hourOrders - made);
+                for (int g = 0; g < group; g++) {
+                    day.add(randomOrder(menu, itemWeights, time + random.nextInt(5_000), random));
+                }
+                made += group;
+            }
+        }
+        day.sort((a, b) -> Long.compare(a.offsetMillis, b.offsetMillis));
+        return day;
+    }
+
+    // Food sells most, then drinks, then desserts; within a category earlier
+    // (more popular) menu items weigh more
+    private static int[] itemWeights(ArrayList<MenuItem> menu) {
+        HashMap<String, Integer> rankInCategory = new HashMap<>();
+        int[] weights = new int[menu.size()];
+        for (int i = 0; i < menu.size(); i++) {
+            String category = menu.get(i).getCategory();
+            int rank = rankInCategory.merge(category, 1, Integer::sum);
+            int categoryWeight = "Food".equals(category) ? 50 : "Beverage".equals(category) ? 35 : 15;
+            weights[i] = Math.max(1, categoryWeight * 12 / (rank + 2));
+        }
+        return weights;
+    }
+
+    private static Arrival randomOrder(ArrayList<MenuItem> menu, int[] itemWeights, long offsetMillis, Random random) {
+        int lines = 1 + pick(new int[] { 35, 35, 20, 10 }, random);
+        int[] ids = new int[lines];
+        int[] quantities = new int[lines];
+        int count = 0;
+        for (int i = 0; i < lines; i++) {
+            int id = menu.get(pick(itemWeights, random)).getId();
+            int quantity = 1 + pick(new int[] { 70, 20, 7, 3 }, random);
+            int existing = indexOf(ids, count, id);
+            if (existing >= 0) {
+                quantities[existing] += quantity;
+            } else {
+                ids[count] = id;
+                quantities[count] = quantity;
+                count++;
+            }
+        }
+        String payment = PAYMENT_METHODS[pick(PAYMENT_WEIGHTS, random)];
+        return new Arrival(offsetMillis, payment, Arrays.copyOf(ids, count), Arrays.copyOf(quantities, count));
+    }
+
+    private static int indexOf(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Index chosen with probability proportional to its weight
+    private static int pick(int[] weights, Random random) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int r = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            r -= weights[i];
+            if (r < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    static void writeDay(File file, List<Arrival> day) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            out.write("offset_ms,payment_method,items");
+            out.newLine();
+            StringBuilder line = new StringBuilder();
+            for (Arrival arrival : day) {
+                line.setLength(0);
+                line.append(arrival.offsetMillis).append(',').append(arrival.paymentMethod).append(',');
+                for (int i = 0; i < arrival.menuItemIds.length; i++) {
+                    if (i > 0) {
+                        line.append(' ');
+                    }
+                    line.append(arrival.menuItemIds[i]).append(':').append(arrival.quantities[i]);
+                }
+                out.write(line.toString());
+                out.newLine();
+            }
+        }
+    }
+
+    static List<Arrival> readDay(File file) throws IOException {
+        ArrayList<Arrival> day = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line = in.readLine(); // Header
+            int lineNumber = 1;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split(",", 3);
+                if (fields.length < 3) {
+                    throw new IOException(file + " line " + lineNumber + ": expected offset_ms,payment_method,items");
+                }
+                String[] lines = fields[2].trim().split("\\s+");
+                int[] ids = new int[lines.length];
+                int[] quantities = new int[lines.length];
+                try {
+                    for (int i = 0; i < lines.length; i++) {
+                        String[] idAndQty = lines[i].split(":");
+                        ids[i] = Integer.parseInt(idAndQty[0]);
+                        quantities[i] = Integer.parseInt(idAndQty[1]);
+                    }
+                    day.add(new Arrival(Long.parseLong(fields[0].trim()), fields[1].trim(), ids, quantities));
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new IOException(file + " line " + lineNumber + ": bad items \"" + fields[2] + "\"");
+                }
+            }
+        }
+        day.sort((a, b) -> Long.compare(a.offsetMillis, b.offsetMillis));
+        return day;
+    }
+}
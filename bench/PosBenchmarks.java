@@ -0,0 +1,165 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Benchmarks for the POS hot paths: building a cart, the receipt, the menu list
+// text, checking out and loading orders, and best-seller aggregation. The database
+// benchmarks run against a temporary SQLite file and journal filled with a
+// realistic history, so the real cektipis.db is never touched. A checkout takes
+// the app's path: appended to the order journal, then projected into the tables.
+//
+// Run with: mvn -P bench verify
+// Options (system properties): -Dbench.filter=<name part> -Dbench.orders=<history size>
+//   -Dbench.warmup=<iterations> -Dbench.iterations=<iterations> -Dbench.millis=<per iteration>
+class PosBenchmarks {
+    private static final int CART_LINES = 8;
+    private static final int PROJECTION_GROUP = 32; // PersistenceExecutor's largest group
+
+    public static void main(String[] args) throws Exception {
+        int historyOrders = Integer.getInteger("bench.orders", 20_000);
+        BenchmarkHarness harness = new BenchmarkHarness(
+                Integer.getInteger("bench.warmup", 3),
+                Integer.getInteger("bench.iterations", 5),
+                Integer.getInteger("bench.millis", 1000),
+                System.getProperty("bench.filter"));
+
+        File dbFile = File.createTempFile("cektipis-bench", ".db");
+        System.setProperty("cektipis.db", dbFile.getAbsolutePath());
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        OrderJournal journal = null;
+        try {
+            dbManager.initializeDatabase();
+            dbManager.seedMenuItems();
+            journal = OrderJournal.open(dbManager, dbManager.getJournalFile());
+            ArrayList<MenuItem> menu = dbManager.loadMenuItems();
+            for (MenuItem item : menu) {
+                item.setStock(1_000_000); // Carts below must never run out
+            }
+            fillHistory(dbManager, journal, menu, historyOrders);
+            dbManager.initializeDatabase(); // As on the next start, which refreshes planner statistics
+            System.out.println("📊 " + menu.size() + " menu items, " + historyOrders + " orders in history");
+
+            runCartBenchmarks(harness, menu);
+            runDatabaseBenchmarks(harness, dbManager, journal, menu);
+            harness.printResults();
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+            dbManager.close();
+            delete(dbFile, dbManager.getJournalFile());
+        }
+    }
+
+    private static void runCartBenchmarks(BenchmarkHarness harness, ArrayList<MenuItem> menu) throws Exception {
+        // A cashier adding lines and reading the total, then the cart being abandoned
+        harness.run("Order.addItem+getGrandTotal (" + CART_LINES + " lines)", () -> {
+            Order order = new Order();
+            long total = 0;
+            for (int i = 0; i < CART_LINES; i++) {
+                order.addItem(menu.get(i % menu.size()), 1 + i % 3);
+                total += order.getGrandTotal();
+            }
+            order.releaseReservations();
+            return total;
+        });
+
+        Order paid = paidOrder(menu);
+        harness.run("Order.getReceipt (" + CART_LINES + " lines)", paid::getReceipt);
+        harness.run("Order.getReceiptEscPos (" + CART_LINES + " lines)", () -> paid.getReceiptEscPos().remaining());
+
+        int[] next = { 0 };
+        harness.run("MenuItem.getDescription", () -> {
+            next[0] = (next[0] + 1) % menu.size();
+            return menu.get(next[0]).getDescription();
+        });
+    }
+
+    private static void runDatabaseBenchmarks(BenchmarkHarness harness, DatabaseManager dbManager,
+            OrderJournal journal, ArrayList<MenuItem> menu) throws Exception {
+        // Reads first, so the history has the same size for each of them
+        harness.run("DatabaseManager.loadCompletedOrders", () -> dbManager.loadCompletedOrders(menu).size());
+        harness.run("DatabaseManager.loadCompletedOrdersPage (50)",
+                () -> dbManager.loadCompletedOrdersPage(menu, Integer.MAX_VALUE, 50).size());
+        harness.run("DatabaseManager.loadSalesAggregates", () -> dbManager.loadSalesAggregates().getOrderCount());
+
+        ArrayList<Order> history = dbManager.loadCompletedOrders(menu);
+        harness.run("SalesAggregates.recordOrder+top(5) (history)", () -> {
+            SalesAggregates aggregates = new SalesAggregates();
+            for (Order order : history) {
+                aggregates.recordOrder(order);
+            }
+            return aggregates.getAllTimeBestSellers().top(5).size();
+        });
+
+        // One checkout on its own, as at a quiet till, and a full group as the
+        // writer projects them in a rush
+        Order paid = paidOrder(menu);
+        harness.run("OrderJournal.append+applyJournal (" + CART_LINES + " lines)",
+                () -> dbManager.applyJournal(List.of(journal.append(OrderJournal.Event.checkout(paid)))));
+        List<OrderJournal.Event> group = new ArrayList<>(PROJECTION_GROUP);
+        harness.run("OrderJournal.append+applyJournal (group of " + PROJECTION_GROUP + ")", () -> {
+            group.clear();
+            for (int i = 0; i < PROJECTION_GROUP; i++) {
+                group.add(journal.append(OrderJournal.Event.checkout(paid)));
+            }
+            return dbManager.applyJournal(group);
+        });
+    }
+
+    private static Order paidOrder(ArrayList<MenuItem> menu) {
+        Order order = new Order();
+        for (int i = 0; i < CART_LINES; i++) {
+            order.addItemForLoading(menu.get(i % menu.size()), 1 + i % 3);
+        }
+        order.setOrderId(1234);
+        order.setStatus("Completed");
+        order.setPaymentMethod("Cash");
+        order.setPaymentAmount(order.getGrandTotal() + 5000);
+        return order;
+    }
+
+    // Completed orders of 1 to 5 lines, journaled and projected in groups
+    private static void fillHistory(DatabaseManager dbManager, OrderJournal journal, ArrayList<MenuItem> menu,
+            int count) throws IOException {
+        Random random = new Random(42);
+        List<OrderJournal.Event> group = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            Order order = new Order();
+            int lines = 1 + random.nextInt(5);
+            for (int i = 0; i < lines; i++) {
+                MenuItem item = menu.get(random.nextInt(menu.size()));
+                if (order.getItem(item.getId()) == null) {
+                    order.addItemForLoading(item, 1 + random.nextInt(3));
+                }
+            }
+            order.setStatus("Completed");
+            order.setPaymentMethod(random.nextBoolean() ? "Cash" : "E-Wallet");
+            order.setPaymentAmount(order.getGrandTotal());
+            group.add(journal.append(OrderJournal.Event.checkout(order)));
+            if (group.size() == 500) {
+                dbManager.applyJournal(group);
+                group.clear();
+            }
+        }
+        if (!group.isEmpty()) {
+            dbManager.applyJournal(group);
+        }
+    }
+
+    private static void delete(File dbFile, File journalFile) throws IOException {
+        ArrayList<File> files = new ArrayList<>();
+        for (String suffix : new String[] { "", "-wal", "-shm" }) {
+            files.add(new File(dbFile.getPath() + suffix));
+        }
+        files.add(journalFile);
+        files.addAll(OrderJournal.segmentFiles(journalFile));
+        for (File file : files) {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Could not delete " + file);
+            }
+        }
+    }
+}
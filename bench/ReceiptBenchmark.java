@@ -0,0 +1,86 @@
+import java.util.Locale;
+
+// Compares the receipt renderer with the String.format based receipt it replaced.
+// Run after "mvn -P bench package" with: java -cp target/classes ReceiptBenchmark [items] [iterations]
+class ReceiptBenchmark {
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        Order order = new Order();
+        for (int i = 1; i <= items; i++) {
+            MenuItem item = new Food("Menu Item " + i, 1000L * i, Integer.MAX_VALUE, i % 6);
+            item.setId(i);
+            order.addItem(item, i % 4 + 1);
+        }
+        order.setOrderId(42);
+        order.setPaymentMethod("Cash");
+        order.setPaymentAmount(order.getGrandTotal() + 5000);
+
+        ReceiptRenderer renderer = new ReceiptRenderer();
+        if (!formatReceipt(order).equals(renderer.renderText(order))) {
+            throw new IllegalStateException("Renderer output differs from the String.format receipt");
+        }
+
+        // Two rounds so the second one runs on warmed-up code
+        for (int round = 1; round <= 2; round++) {
+            System.out.println("Round " + round + " (" + items + " items, " + iterations + " receipts)");
+            report("String.format", time(iterations, () -> formatReceipt(order).length()), iterations);
+            report("renderText", time(iterations, () -> renderer.renderText(order).length()), iterations);
+            report("renderEscPos", time(iterations, () -> renderer.renderEscPos(order).remaining()), iterations);
+        }
+    }
+
+    private interface Work {
+        int run();
+    }
+
+    private static long sink;
+
+    private static long time(int iterations, Work work) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += work.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long nanos, int iterations) {
+        System.out.println(String.format(Locale.ROOT, "  %-14s %10.0f ns/receipt", name, (double) nanos / iterations));
+    }
+
+    // The receipt as Order.getReceipt used to build it
+    private static String formatReceipt(Order order) {
+        StringBuilder receipt = new StringBuilder();
+        receipt.append("\n╔════════════════════════════════════╗\n");
+        receipt.append("║     WARUNG PADANG SEDERHANA       ║\n");
+        receipt.append("║      Jl. Merdeka No. 123          ║\n");
+        receipt.append("╠════════════════════════════════════╣\n");
+        receipt.append(String.format("  Order #%04d\n", order.getOrderId()));
+        receipt.append("  " + order.getTimestamp().toString() + "\n");
+        receipt.append("────────────────────────────────────\n");
+
+        for (Order.OrderItem item : order.getItems()) {
+            String name = String.format("%-20s", item.getMenuItem().getName());
+            String qty = String.format("%4dx", item.getQuantity());
+            String price = String.format("%12s", "Rp " + String.format("%,d", item.getSubtotal()));
+            receipt.append(name + " " + qty + " " + price + "\n");
+        }
+
+        receipt.append("────────────────────────────────────\n");
+        receipt.append(String.format("%-30s %12s\n", "Subtotal:", "Rp " + String.format("%,d", order.getTotal())));
+        receipt.append(String.format("%-30s %12s\n", "Tax (10%):", "Rp " + String.format("%,d", order.getTax())));
+        receipt.append("────────────────────────────────────\n");
+        receipt.append(String.format("%-30s %12s\n", "TOTAL:", "Rp " + String.format("%,d", order.getGrandTotal())));
+        receipt.append(String.format("%-30s %12s\n", "Payment (" + order.getPaymentMethod() + "):",
+                "Rp " + String.format("%,d", order.getPaymentAmount())));
+        receipt.append(String.format("%-30s %12s\n", "Change:",
+                "Rp " + String.format("%,d", order.getPaymentAmount() - order.getGrandTotal())));
+        receipt.append("────────────────────────────────────\n");
+        receipt.append("    Terima Kasih! 🙏\n");
+        receipt.append("    Selamat Menikmati! 😋\n");
+        receipt.append("╚════════════════════════════════════╝\n");
+
+        return receipt.toString();
+    }
+}
@@ -0,0 +1,129 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Keeps menu items ranked by quantity sold, keyed by menu item id.
+// Every sale moves one entry inside a sorted set (O(log items)), so asking for
+// the top N only walks the first N entries instead of sorting all of them.
+// With windowDays > 0 the ranking only counts the last windowDays calendar days
+// (1 = today); sales are bucketed per day and whole days drop out as they expire.
+class BestSellerTracker {
+    private final int windowDays;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final HashMap<Integer, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>((a, b) -> a.quantity != b.quantity
+            ? Integer.compare(b.quantity, a.quantity)
+            : Integer.compare(a.menuItemId, b.menuItemId));
+    // epoch day -> (menu item id -> quantity), only used for windowed trackers
+    private final TreeMap<Long, HashMap<Integer, Integer>> days = new TreeMap<>();
+
+    static class Entry {
+        private final int menuItemId;
+        private final String name;
+        private int quantity;
+
+        Entry(int menuItemId, String name, int quantity) {
+            this.menuItemId = menuItemId;
+            this.name = name;
+            this.quantity = quantity;
+        }
+
+        public int getMenuItemId() { return menuItemId; }
+        public String getName() { return name; }
+        public int getQuantity() { return quantity; }
+    }
+
+    // Receives the day buckets of a windowed tracker
+    interface DayVisitor {
+        void visit(long dayStart, int menuItemId, String name, int quantity);
+    }
+
+    // windowDays = 0 tracks all time
+    public BestSellerTracker(int windowDays) {
+        this.windowDays = windowDays;
+    }
+
+    public void record(int menuItemId, String name, int quantity, long timestamp) {
+        if (windowDays > 0) {
+            long day = toEpochDay(timestamp);
+            long firstDay = expire(System.currentTimeMillis());
+            if (day < firstDay) {
+                return; // Already outside the window
+            }
+            days.computeIfAbsent(day, d -> new HashMap<>()).merge(menuItemId, quantity, Integer::sum);
+        }
+        adjust(menuItemId, name, quantity);
+    }
+
+    // Top sellers, highest quantity first
+    public ArrayList<Entry> top(int n) {
+        if (windowDays > 0) {
+            expire(System.currentTimeMillis());
+        }
+        ArrayList<Entry> top = new ArrayList<>(Math.min(n, ranking.size()));
+        Iterator<Entry> it = ranking.iterator();
+        while (top.size() < n && it.hasNext()) {
+            Entry entry = it.next();
+            top.add(new Entry(entry.menuItemId, entry.name, entry.quantity));
+        }
+        return top;
+    }
+
+    // Quantity sold per item and day still inside the window, with the day's
+    // start in epoch millis, so record() can rebuild the same tracker
+    public void forEachDay(DayVisitor visitor) {
+        expire(System.currentTimeMillis());
+        for (Map.Entry<Long, HashMap<Integer, Integer>> day : days.entrySet()) {
+            long dayStart = LocalDate.ofEpochDay(day.getKey()).atStartOfDay(zone).toInstant().toEpochMilli();
+            for (Map.Entry<Integer, Integer> sold : day.getValue().entrySet()) {
+                visitor.visit(dayStart, sold.getKey(), entries.get(sold.getKey()).name, sold.getValue());
+            }
+        }
+    }
+
+    public int getQuantity(int menuItemId) {
+        Entry entry = entries.get(menuItemId);
+        return entry == null ? 0 : entry.quantity;
+    }
+
+    private void adjust(int menuItemId, String name, int delta) {
+        Entry entry = entries.get(menuItemId);
+        if (entry == null) {
+            if (delta <= 0) {
+                return;
+            }
+            entry = new Entry(menuItemId, name, 0);
+            entries.put(menuItemId, entry);
+        } else {
+            ranking.remove(entry);
+        }
+
+        entry.quantity += delta;
+        if (entry.quantity > 0) {
+            ranking.add(entry);
+        } else {
+            entries.remove(menuItemId);
+        }
+    }
+
+    // Drop day buckets that fell out of the window; returns the first day still inside it
+    private long expire(long now) {
+        long firstDay = toEpochDay(now) - windowDays + 1;
+        while (!days.isEmpty() && days.firstKey() < firstDay) {
+            for (Map.Entry<Integer, Integer> sold : days.pollFirstEntry().getValue().entrySet()) {
+                adjust(sold.getKey(), null, -sold.getValue());
+            }
+        }
+        return firstDay;
+    }
+
+    private long toEpochDay(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate().toEpochDay();
+    }
+}
@@ -1,14 +1,16 @@
 class Beverage extends MenuItem {
     private boolean isHot;
 
-    public Beverage(String name, double price, int stock, boolean isHot) {
+    public Beverage(String name, long price, int stock, boolean isHot) {
         super(name, price, stock, "Beverage");
         this.isHot = isHot;
     }
 
+    public boolean isHot() { return isHot; }
+
     @Override
     public String getDescription() {
         String temp = isHot ? "☕ Hot" : "🧊 Cold";
-        return temp + " " + getName() + " - Rp " + String.format("%,.0f", getPrice());
+        return temp + " " + getName() + " - " + Money.format(getPrice());
     }
 }
\ No newline at end of file
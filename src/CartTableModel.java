@@ -0,0 +1,95 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.function.Consumer;
+
+// Cart table backed directly by the current Order. Each change fires an event
+// for just the rows it touched instead of rebuilding the table, and quantity
+// edits go straight to the order, so they no longer bounce through a listener.
+class CartTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = { "Item", "Price", "Qty", "Subtotal" };
+    private static final int QTY_COLUMN = 2;
+
+    private Order order;
+    private final Consumer<RuntimeException> onEditError;
+
+    public CartTableModel(Order order, Consumer<RuntimeException> onEditError) {
+        this.order = order;
+        this.onEditError = onEditError;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+        fireTableDataChanged();
+    }
+
+    public void addItem(MenuItem item, int quantity) throws OutOfStockException {
+        int rowsBefore = order.getItems().size();
+        order.addItem(item, quantity);
+        int row = order.indexOf(item.getId());
+        if (order.getItems().size() > rowsBefore) {
+            fireTableRowsInserted(row, row);
+        } else {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    public void removeRow(int row) {
+        order.removeItem(order.getItems().get(row).getMenuItem().getId());
+        fireTableRowsDeleted(row, row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return order.getItems().size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == QTY_COLUMN ? Integer.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == QTY_COLUMN; // Only quantity editable
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Order.OrderItem item = order.getItems().get(row);
+        switch (column) {
+            case 0:
+                return item.getMenuItem().getName();
+            case 1:
+                return item.getMenuItem().getPriceText();
+            case 2:
+                return item.getQuantity();
+            case 3:
+                return Money.format(item.getSubtotal());
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (column != QTY_COLUMN || value == null) {
+            return;
+        }
+        Order.OrderItem item = order.getItems().get(row);
+        try {
+            order.updateQuantity(item.getMenuItem().getId(), ((Number) value).intValue());
+            fireTableRowsUpdated(row, row);
+        } catch (InvalidQuantityException | OutOfStockException e) {
+            onEditError.accept(e);
+        }
+    }
+}
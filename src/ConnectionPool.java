@@ -0,0 +1,88 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hands every thread its own SQLite connection. A JDBC connection must not be
+// shared between threads, and with WAL each connection can read while another
+// writes, so terminals and background writers no longer queue on one handle.
+// A thread that is done with the database, such as main after startup, should
+// release() its connection. One left behind by a thread that ended is closed
+// the next time a thread opens one.
+class ConnectionPool {
+    private static final int BUSY_TIMEOUT_MS = 5000;
+
+    private final String url;
+    private final ThreadLocal<Connection> perThread = new ThreadLocal<>();
+    private final ConcurrentHashMap<Connection, Thread> owners = new ConcurrentHashMap<>();
+
+    public ConnectionPool(String url) {
+        this.url = url;
+    }
+
+    // Connection of the calling thread, opened on first use
+    public Connection get() throws SQLException {
+        Connection connection = perThread.get();
+        if (connection == null || connection.isClosed()) {
+            closeAbandoned();
+            connection = open();
+            perThread.set(connection);
+            owners.put(connection, Thread.currentThread());
+        }
+        return connection;
+    }
+
+    // Close the calling thread's connection; it gets a new one if it asks again
+    public void release() throws SQLException {
+        Connection connection = perThread.get();
+        if (connection != null) {
+            perThread.remove();
+            owners.remove(connection);
+            connection.close();
+        }
+    }
+
+    // Connections of threads that ended without releasing them
+    private void closeAbandoned() {
+        for (Map.Entry<Connection, Thread> entry : owners.entrySet()) {
+            if (!entry.getValue().isAlive() && owners.remove(entry.getKey(), entry.getValue())) {
+                Metrics.counter("db.abandonedConnections").increment();
+                try {
+                    entry.getKey().close();
+                } catch (SQLException e) {
+                    Metrics.counter("db.errors").increment();
+                    System.err.println("❌ Error closing abandoned connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Connection open() throws SQLException {
+        Properties props = new Properties();
+        // Write transactions take the write lock at BEGIN, so they wait in the
+        // busy handler instead of failing when a read upgrades to a write
+        props.setProperty("transaction_mode", "IMMEDIATE");
+        Connection connection = DriverManager.getConnection(url, props);
+        try (Statement stmt = connection.createStatement()) {
+            // Only takes effect on a new database, before its first table; lets
+            // OrderArchiver.reclaimSpace shrink the file without a full VACUUM
+            stmt.execute("PRAGMA auto_vacuum=INCREMENTAL");
+            // WAL lets a checkout commit with a single append to the log instead of
+            // rewriting the main file, and NORMAL sync only fsyncs at checkpoints
+            stmt.execute("PRAGMA journal_mode=WAL");
+            stmt.execute("PRAGMA synchronous=NORMAL");
+            stmt.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MS);
+        }
+        return connection;
+    }
+
+    public void closeAll() throws SQLException {
+        for (Connection connection : owners.keySet()) {
+            owners.remove(connection);
+            connection.close();
+        }
+    }
+}
@@ -1,20 +1,44 @@
+import java.io.File;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
 
 public class DatabaseManager {
     private static DatabaseManager instance;
-    private Connection connection;
-    private static final String DB_URL = "jdbc:sqlite:cektipis.db";
+    private final ConnectionPool pool;
+    private final OrderArchiver archiver;
+    // -Dcektipis.db=<file> points the app (or a benchmark) at another database file
+    private static final String DB_FILE = System.getProperty("cektipis.db", "cektipis.db");
+    private static final String DB_URL = "jdbc:sqlite:" + DB_FILE;
+    private static final int MAX_BUSY_RETRIES = 5;
+
+    // Unit of work run inside a transaction
+    public interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    // Read run once per database holding orders, given the schema to query
+    private interface SchemaWork {
+        void run(Connection connection, String schema) throws SQLException;
+    }
 
     private DatabaseManager() {
+        pool = new ConnectionPool(DB_URL);
+        archiver = new OrderArchiver(this, new File(DB_FILE));
         try {
             // Explicitly load SQLite JDBC driver
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection(DB_URL);
+            connection();
             System.out.println("✅ Connected to SQLite database");
         } catch (ClassNotFoundException e) {
+            Metrics.counter("db.errors").increment();
             System.err.println("❌ SQLite JDBC driver not found: " + e.getMessage());
         } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
             System.err.println("❌ Database connection failed: " + e.getMessage());
         }
     }
@@ -26,66 +50,117 @@ public class DatabaseManager {
         return instance;
     }
 
+    public OrderArchiver getArchiver() {
+        return archiver;
+    }
+
+    // Order journal kept next to the database file, e.g. cektipis.journal
+    public File getJournalFile() {
+        return besideDatabase(".journal");
+    }
+
+    // Saved copy of the app's state, see StateSnapshot
+    public File getSnapshotFile() {
+        return besideDatabase(".snapshot");
+    }
+
+    private static File besideDatabase(String extension) {
+        return new File(DB_FILE.replaceFirst("\\.db$", "") + extension);
+    }
+
+    // Connection owned by the calling thread
     public Connection getConnection() {
-        return connection;
+        try {
+            return connection();
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Database connection failed: " + e.getMessage());
+            return null;
+        }
     }
 
-    // Initialize database tables
-    public void initializeDatabase() {
-        String createMenuItems = """
-            CREATE TABLE IF NOT EXISTS menu_items (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                name TEXT NOT NULL,
-                price REAL NOT NULL,
-                stock INTEGER DEFAULT 0,
-                category TEXT NOT NULL,
-                spicy_level INTEGER DEFAULT 0,
-                is_hot INTEGER DEFAULT 0,
-                has_ice_cream INTEGER DEFAULT 0
-            )
-        """;
+    private Connection connection() throws SQLException {
+        return pool.get();
+    }
 
-        String createOrders = """
-            CREATE TABLE IF NOT EXISTS orders (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                timestamp TEXT NOT NULL,
-                status TEXT DEFAULT 'Pending',
-                payment_method TEXT,
-                payment_amount REAL,
-                total REAL,
-                tax REAL,
-                grand_total REAL
-            )
-        """;
+    // Close the calling thread's connection once it is done with the database
+    public void releaseConnection() {
+        try {
+            pool.release();
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error closing connection: " + e.getMessage());
+        }
+    }
 
-        String createOrderItems = """
-            CREATE TABLE IF NOT EXISTS order_items (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                order_id INTEGER NOT NULL,
-                menu_item_id INTEGER NOT NULL,
-                menu_item_name TEXT NOT NULL,
-                quantity INTEGER NOT NULL,
-                price REAL NOT NULL,
-                subtotal REAL NOT NULL,
-                FOREIGN KEY (order_id) REFERENCES orders(id),
-                FOREIGN KEY (menu_item_id) REFERENCES menu_items(id)
-            )
-        """;
+    // Run work in one transaction on this thread's connection. If another
+    // connection holds the write lock past the busy timeout, the whole
+    // transaction is rolled back and retried with a growing pause.
+    public <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        Connection connection = connection();
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    connection.setAutoCommit(false);
+                    T result = work.run(connection);
+                    connection.commit();
+                    return result;
+                } catch (SQLException e) {
+                    rollback(connection);
+                    if (!isBusy(e) || attempt >= MAX_BUSY_RETRIES) {
+                        throw e;
+                    }
+                    Metrics.counter("db.busyRetries").increment();
+                    pause(attempt);
+                } finally {
+                    restoreAutoCommit(connection);
+                }
+            }
+        } finally {
+            Metrics.timer("db.inTransaction").stop(start);
+        }
+    }
 
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(createMenuItems);
-            stmt.execute(createOrders);
-            stmt.execute(createOrderItems);
+    // SQLITE_BUSY or SQLITE_LOCKED, extended codes such as SQLITE_BUSY_SNAPSHOT included
+    private static boolean isBusy(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLiteException) {
+                int primary = ((SQLiteException) cause).getResultCode().code & 0xFF;
+                return primary == SQLiteErrorCode.SQLITE_BUSY.code || primary == SQLiteErrorCode.SQLITE_LOCKED.code;
+            }
+        }
+        return false;
+    }
+
+    private static void pause(int attempt) throws SQLException {
+        try {
+            Thread.sleep(50L * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for database lock", e);
+        }
+    }
+
+    // Create the tables, or bring an existing database up to the current schema
+    public void initializeDatabase() {
+        long start = System.nanoTime();
+        try {
+            new SchemaMigrations(this).migrate();
             System.out.println("✅ Database tables initialized");
         } catch (SQLException e) {
-            System.err.println("❌ Error creating tables: " + e.getMessage());
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error migrating database schema: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.initializeDatabase").stop(start);
         }
     }
 
     // Seed initial menu items if empty
     public void seedMenuItems() {
+        long start = System.nanoTime();
         String countQuery = "SELECT COUNT(*) FROM menu_items";
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = connection().createStatement();
              ResultSet rs = stmt.executeQuery(countQuery)) {
             
             if (rs.next() && rs.getInt(1) == 0) {
@@ -112,16 +187,19 @@ public class DatabaseManager {
                 System.out.println("✅ Menu items seeded successfully");
             }
         } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
             System.err.println("❌ Error seeding menu items: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.seedMenuItems").stop(start);
         }
     }
 
-    private void insertMenuItem(String name, double price, int stock, String category, 
+    private void insertMenuItem(String name, long price, int stock, String category, 
                                  int spicyLevel, int isHot, int hasIceCream) {
         String sql = "INSERT INTO menu_items (name, price, stock, category, spicy_level, is_hot, has_ice_cream) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = connection().prepareStatement(sql)) {
             pstmt.setString(1, name);
-            pstmt.setDouble(2, price);
+            pstmt.setLong(2, price);
             pstmt.setInt(3, stock);
             pstmt.setString(4, category);
             pstmt.setInt(5, spicyLevel);
@@ -129,169 +207,627 @@ public class DatabaseManager {
             pstmt.setInt(7, hasIceCream);
             pstmt.executeUpdate();
         } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
             System.err.println("❌ Error inserting menu item: " + e.getMessage());
         }
     }
 
     // Load all menu items from database
     public ArrayList<MenuItem> loadMenuItems() {
+        long start = System.nanoTime();
         ArrayList<MenuItem> menuItems = new ArrayList<>();
         String sql = "SELECT * FROM menu_items";
         
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = connection().createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
                 int id = rs.getInt("id");
                 String name = rs.getString("name");
-                double price = rs.getDouble("price");
+                long price = rs.getLong("price");
                 int stock = rs.getInt("stock");
                 String category = rs.getString("category");
                 
-                MenuItem item = null;
-                
-                switch (category) {
-                    case "Food":
-                        int spicyLevel = rs.getInt("spicy_level");
-                        item = new Food(name, price, stock, spicyLevel);
-                        break;
-                    case "Beverage":
-                        boolean isHot = rs.getInt("is_hot") == 1;
-                        item = new Beverage(name, price, stock, isHot);
-                        break;
-                    case "Dessert":
-                        boolean hasIceCream = rs.getInt("has_ice_cream") == 1;
-                        item = new Dessert(name, price, stock, hasIceCream);
-                        break;
-                }
+                MenuItem item = createMenuItem(id, name, price, stock, category,
+                        rs.getInt("spicy_level"), rs.getInt("is_hot") == 1, rs.getInt("has_ice_cream") == 1);
                 
                 if (item != null) {
-                    item.setId(id);
                     menuItems.add(item);
                 }
             }
         } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
             System.err.println("❌ Error loading menu items: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.loadMenuItems").stop(start);
         }
-        
         return menuItems;
     }
 
+    // Menu item of the subclass for its category, or null for an unknown category
+    static MenuItem createMenuItem(int id, String name, long price, int stock, String category,
+            int spicyLevel, boolean isHot, boolean hasIceCream) {
+        MenuItem item = null;
+        switch (category) {
+            case "Food":
+                item = new Food(name, price, stock, spicyLevel);
+                break;
+            case "Beverage":
+                item = new Beverage(name, price, stock, isHot);
+                break;
+            case "Dessert":
+                item = new Dessert(name, price, stock, hasIceCream);
+                break;
+        }
+        if (item != null) {
+            item.setId(id);
+        }
+        return item;
+    }
+
     // Update stock for a menu item
     public void updateStock(int menuItemId, int newStock) {
+        long start = System.nanoTime();
         String sql = "UPDATE menu_items SET stock = ? WHERE id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = connection().prepareStatement(sql)) {
             pstmt.setInt(1, newStock);
             pstmt.setInt(2, menuItemId);
             pstmt.executeUpdate();
         } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
             System.err.println("❌ Error updating stock: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.updateStock").stop(start);
         }
     }
 
-    // Save a completed order
-    public int saveOrder(Order order) {
-        String orderSql = "INSERT INTO orders (timestamp, status, payment_method, payment_amount, total, tax, grand_total) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(orderSql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, order.getTimestamp().toString());
-            pstmt.setString(2, order.getStatus());
-            pstmt.setString(3, order.getPaymentMethod());
-            pstmt.setDouble(4, order.getPaymentAmount());
-            pstmt.setDouble(5, order.getTotal());
-            pstmt.setDouble(6, order.getTax());
-            pstmt.setDouble(7, order.getGrandTotal());
-            pstmt.executeUpdate();
-            
-            ResultSet keys = pstmt.getGeneratedKeys();
-            if (keys.next()) {
-                int orderId = keys.getInt(1);
-                saveOrderItems(orderId, order);
-                return orderId;
-            }
+    // Project journal events into the tables in one transaction, recording the
+    // last one in journal_state. Checkouts keep the order id the journal gave
+    // them. If the group fails as a whole, the events are applied one at a time
+    // up to the first that fails: journal_state can only move past an event once
+    // it is in the tables, so nothing after a failure may be applied before it.
+    // Returns how many events from the start of the list were applied.
+    public int applyJournal(List<OrderJournal.Event> events) {
+        long start = System.nanoTime();
+        try {
+            inTransaction(connection -> {
+                for (OrderJournal.Event event : events) {
+                    applyEvent(connection, event);
+                }
+                return null;
+            });
+            return events.size();
         } catch (SQLException e) {
-            System.err.println("❌ Error saving order: " + e.getMessage());
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error applying journal group: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.applyJournal").stop(start);
+        }
+
+        Metrics.counter("db.groupCommitFallbacks").increment();
+        for (int i = 0; i < events.size(); i++) {
+            OrderJournal.Event event = events.get(i);
+            try {
+                inTransaction(connection -> {
+                    applyEvent(connection, event);
+                    return null;
+                });
+            } catch (SQLException e) {
+                Metrics.counter("db.errors").increment();
+                Metrics.counter("journal.projectionFailures").increment();
+                System.err.println("❌ Error applying journal event " + event.getSequence() + ": " + e.getMessage());
+                return i;
+            }
         }
-        return -1;
+        return events.size();
     }
 
-    private void saveOrderItems(int orderId, Order order) {
-        String sql = "INSERT INTO order_items (order_id, menu_item_id, menu_item_name, quantity, price, subtotal) VALUES (?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            for (Order.OrderItem item : order.getItems()) {
-                pstmt.setInt(1, orderId);
-                pstmt.setInt(2, item.getMenuItem().getId());
-                pstmt.setString(3, item.getMenuItem().getName());
-                pstmt.setInt(4, item.getQuantity());
-                pstmt.setDouble(5, item.getMenuItem().getPrice());
-                pstmt.setDouble(6, item.getSubtotal());
+    private void applyEvent(Connection connection, OrderJournal.Event event) throws SQLException {
+        if (event.getType() == OrderJournal.RESTOCK) {
+            try (PreparedStatement pstmt = connection.prepareStatement(
+                    "UPDATE menu_items SET stock = stock + ? WHERE id = ?")) {
+                pstmt.setInt(1, event.getQuantity(0));
+                pstmt.setInt(2, event.getMenuItemId(0));
                 pstmt.executeUpdate();
             }
+        } else if (event.getType() == OrderJournal.CATALOG) {
+            MenuCatalogImporter.project(connection, event.getCatalogRows());
+        } else {
+            insertJournaledOrder(connection, event);
+        }
+
+        // Events are projected strictly in sequence; one that does not follow
+        // the last projected would leave a hole that recovery never revisits
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "UPDATE journal_state SET sequence = ?, end_offset = ? WHERE id = 1 AND sequence = ? - 1")) {
+            pstmt.setLong(1, event.getSequence());
+            pstmt.setLong(2, event.getEndOffset());
+            pstmt.setLong(3, event.getSequence());
+            if (pstmt.executeUpdate() != 1) {
+                throw new SQLException("Journal event " + event.getSequence()
+                        + " does not follow the last event projected");
+            }
+        }
+    }
+
+    private void insertJournaledOrder(Connection connection, OrderJournal.Event event) throws SQLException {
+        String orderSql = "INSERT INTO orders (id, timestamp, created_at, status, payment_method, payment_amount, total, tax, grand_total) VALUES (?, ?, ?, 'Completed', ?, ?, ?, ?, ?)";
+        String itemSql = "INSERT INTO order_items (order_id, menu_item_id, menu_item_name, quantity, price, subtotal) VALUES (?, ?, ?, ?, ?, ?)";
+        String stockSql = "UPDATE menu_items SET stock = stock - ? WHERE id = ?";
+
+        try (PreparedStatement order = connection.prepareStatement(orderSql);
+             PreparedStatement items = connection.prepareStatement(itemSql);
+             PreparedStatement stock = connection.prepareStatement(stockSql)) {
+            order.setInt(1, event.getOrderId());
+            order.setString(2, new Date(event.getCreatedAt()).toString());
+            order.setLong(3, event.getCreatedAt());
+            order.setString(4, event.getPaymentMethod());
+            order.setLong(5, event.getPaymentAmount());
+            order.setLong(6, event.getTotal());
+            order.setLong(7, event.getTax());
+            order.setLong(8, event.getGrandTotal());
+            order.executeUpdate();
+
+            for (int i = 0; i < event.getLineCount(); i++) {
+                items.setInt(1, event.getOrderId());
+                items.setInt(2, event.getMenuItemId(i));
+                items.setString(3, event.getName(i));
+                items.setInt(4, event.getQuantity(i));
+                items.setLong(5, event.getPrice(i));
+                items.setLong(6, event.getSubtotal(i));
+                items.addBatch();
+                stock.setInt(1, event.getQuantity(i));
+                stock.setInt(2, event.getMenuItemId(i));
+                stock.addBatch();
+            }
+            items.executeBatch();
+            stock.executeBatch();
+        }
+    }
+
+    // Sequence number and file offset just past the last journal event projected
+    public long[] loadJournalState() throws SQLException {
+        long start = System.nanoTime();
+        try (Statement stmt = connection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT sequence, end_offset FROM journal_state WHERE id = 1")) {
+            return rs.next() ? new long[] { rs.getLong(1), rs.getLong(2) } : new long[2];
+        } finally {
+            Metrics.timer("db.loadJournalState").stop(start);
+        }
+    }
+
+    // Last journal sequence projected and the data change counter, or null if
+    // they cannot be read. Together they tell whether a saved snapshot still
+    // matches the tables.
+    public long[] loadChangeCounters() {
+        long start = System.nanoTime();
+        String sql = """
+            SELECT (SELECT sequence FROM journal_state WHERE id = 1),
+                   (SELECT counter FROM data_changes WHERE id = 1)
+        """;
+        try (Statement stmt = connection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? new long[] { rs.getLong(1), rs.getLong(2) } : null;
         } catch (SQLException e) {
-            System.err.println("❌ Error saving order items: " + e.getMessage());
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error loading change counters: " + e.getMessage());
+            return null;
+        } finally {
+            Metrics.timer("db.loadChangeCounters").stop(start);
         }
     }
 
-    // Load completed orders for sales report
+    // Highest order id handed out so far, including archived and deleted orders
+    public int maxOrderId() throws SQLException {
+        long start = System.nanoTime();
+        String sql = """
+            SELECT MAX(COALESCE((SELECT seq FROM sqlite_sequence WHERE name = 'orders'), 0),
+                       COALESCE((SELECT MAX(id) FROM orders), 0))
+        """;
+        try (Statement stmt = connection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } finally {
+            Metrics.timer("db.maxOrderId").stop(start);
+        }
+    }
+
+    private void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error rolling back: " + e.getMessage());
+        }
+    }
+
+    private void restoreAutoCommit(Connection connection) {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error restoring auto-commit: " + e.getMessage());
+        }
+    }
+
+    // Load completed orders for sales report, archived months first
     public ArrayList<Order> loadCompletedOrders(ArrayList<MenuItem> menu) {
+        long start = System.nanoTime();
         ArrayList<Order> orders = new ArrayList<>();
-        String sql = "SELECT * FROM orders WHERE status = 'Completed'";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                int orderId = rs.getInt("id");
-                Order order = new Order();
+        // One ordered join instead of a query per order; rows for the same
+        // order arrive together, so a single pass over the cursor rebuilds them
+        String sql = """
+            SELECT o.id, o.created_at, o.status, o.payment_method, o.payment_amount,
+                   o.total, o.tax, o.grand_total, oi.menu_item_id, oi.menu_item_name, oi.quantity, oi.price
+            FROM %1$s.orders o
+            LEFT JOIN %1$s.order_items oi ON oi.order_id = o.id
+            WHERE o.status = 'Completed'
+            ORDER BY o.id, oi.id
+        """;
+
+        try {
+            HashMap<Integer, MenuItem> menuById = indexMenu(menu);
+            readAcross(Long.MIN_VALUE, Long.MAX_VALUE, (connection, schema) -> {
+                try (Statement stmt = connection.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql.formatted(schema))) {
+                    readOrders(rs, menuById, orders);
+                }
+            });
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error loading orders: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.loadCompletedOrders").stop(start);
+        }
+        return orders;
+    }
+
+    // Load one page of completed orders, newest first, older than beforeOrderId.
+    // Keyset paging on the primary key keeps every page an index seek, however
+    // deep into the history the caller has scrolled. Once the hot database runs
+    // out, the page continues in the archived months, newest first.
+    public ArrayList<Order> loadCompletedOrdersPage(ArrayList<MenuItem> menu, int beforeOrderId, int limit) {
+        long start = System.nanoTime();
+        ArrayList<Order> orders = new ArrayList<>();
+
+        try {
+            HashMap<Integer, MenuItem> menuById = indexMenu(menu);
+            readPage(connection(), "main", menuById, beforeOrderId, limit, orders);
+            if (orders.size() < limit) {
+                ArrayList<OrderArchiver.ArchivedMonth> archives = archiver.getArchives();
+                for (int i = archives.size() - 1; i >= 0 && orders.size() < limit; i--) {
+                    OrderArchiver.ArchivedMonth archive = archives.get(i);
+                    int before = orders.isEmpty() ? beforeOrderId : orders.get(orders.size() - 1).getOrderId();
+                    int remaining = limit - orders.size();
+                    if (archive.getOrderCount() == 0 || archive.getFirstOrderId() >= before) {
+                        continue;
+                    }
+                    archiver.read(archive, connection -> {
+                        readPage(connection, OrderArchiver.SCHEMA, menuById, before, remaining, orders);
+                        return null;
+                    });
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error loading order page: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.loadCompletedOrdersPage").stop(start);
+        }
+        return orders;
+    }
+
+    private void readPage(Connection connection, String schema, HashMap<Integer, MenuItem> menuById,
+            int beforeOrderId, int limit, ArrayList<Order> orders) throws SQLException {
+        String sql = """
+            SELECT o.id, o.created_at, o.status, o.payment_method, o.payment_amount,
+                   o.total, o.tax, o.grand_total, oi.menu_item_id, oi.menu_item_name, oi.quantity, oi.price
+            FROM (SELECT * FROM %1$s.orders
+                  WHERE status = 'Completed' AND id < ?
+                  ORDER BY id DESC LIMIT ?) o
+            LEFT JOIN %1$s.order_items oi ON oi.order_id = o.id
+            ORDER BY o.id DESC, oi.id
+        """;
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql.formatted(schema))) {
+            pstmt.setInt(1, beforeOrderId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                readOrders(rs, menuById, orders);
+            }
+        }
+    }
+
+    private void readOrders(ResultSet rs, HashMap<Integer, MenuItem> menuById, ArrayList<Order> orders)
+            throws SQLException {
+        Order order = null;
+        while (rs.next()) {
+            int orderId = rs.getInt("id");
+            if (order == null || order.getOrderId() != orderId) {
+                order = new Order();
                 order.setOrderId(orderId);
+                order.setTimestamp(new Date(rs.getLong("created_at")));
                 order.setStatus(rs.getString("status"));
                 order.setPaymentMethod(rs.getString("payment_method"));
-                order.setPaymentAmount(rs.getDouble("payment_amount"));
-                
-                // Load order items
-                loadOrderItems(order, menu);
+                order.setPaymentAmount(rs.getLong("payment_amount"));
                 orders.add(order);
             }
+
+            int menuItemId = rs.getInt("menu_item_id");
+            if (!rs.wasNull()) { // Null for an order without items
+                MenuItem item = menuById.get(menuItemId);
+                if (item == null) {
+                    // Gone from the menu; the line keeps what was sold, as Food since its category is gone too
+                    item = new Food(rs.getString("menu_item_name"), rs.getLong("price"), 0, 0);
+                    item.setId(menuItemId);
+                }
+                order.addItemForLoading(item, rs.getInt("quantity"));
+            }
+            long grandTotal = rs.getLong("grand_total");
+            if (!rs.wasNull()) {
+                order.setStoredTotals(rs.getLong("total"), rs.getLong("tax"), grandTotal);
+            }
+        }
+    }
+
+    // Run a read against every archived month overlapping [from, to), oldest
+    // first, and then the hot database. The work is given the schema to query:
+    // "archive" while a month's file is attached, "main" for the hot database.
+    private void readAcross(long from, long to, SchemaWork work) throws SQLException {
+        for (OrderArchiver.ArchivedMonth archive : archiver.getArchives()) {
+            if (archive.overlaps(from, to)) {
+                archiver.read(archive, connection -> {
+                    work.run(connection, OrderArchiver.SCHEMA);
+                    return null;
+                });
+            }
+        }
+        work.run(connection(), "main");
+    }
+
+    // Number of completed orders, counted by the database; archived months from their totals
+    public int countCompletedOrders() {
+        long start = System.nanoTime();
+        String sql = """
+            SELECT (SELECT COUNT(*) FROM orders WHERE status = 'Completed')
+                 + (SELECT COALESCE(SUM(order_count), 0) FROM order_archives)
+        """;
+        try (Statement stmt = connection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
         } catch (SQLException e) {
-            System.err.println("❌ Error loading orders: " + e.getMessage());
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error counting orders: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.countCompletedOrders").stop(start);
         }
-        
-        return orders;
+        return 0;
     }
 
-    private void loadOrderItems(Order order, ArrayList<MenuItem> menu) {
-        String sql = "SELECT * FROM order_items WHERE order_id = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, order.getOrderId());
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                int menuItemId = rs.getInt("menu_item_id");
-                int quantity = rs.getInt("quantity");
-                
-                // Find menu item by ID
-                for (MenuItem item : menu) {
-                    if (item.getId() == menuItemId) {
-                        order.addItemForLoading(item, quantity);
-                        break;
-                    }
+    // Sum of grand totals of completed orders, computed by the database
+    public long sumCompletedSales() {
+        long start = System.nanoTime();
+        String sql = """
+            SELECT (SELECT COALESCE(SUM(grand_total), 0) FROM orders WHERE status = 'Completed')
+                 + (SELECT COALESCE(SUM(total_sales), 0) FROM order_archives)
+        """;
+        try (Statement stmt = connection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error summing sales: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.sumCompletedSales").stop(start);
+        }
+        return 0;
+    }
+
+    // Seed the running sales totals: order count and revenue, plus quantity sold per menu item
+    public SalesAggregates loadSalesAggregates() {
+        long start = System.nanoTime();
+        try {
+            SalesAggregates aggregates = new SalesAggregates();
+            aggregates.setOrderTotals(countCompletedOrders(), sumCompletedSales());
+
+            String sql = """
+                SELECT menu_item_id, MAX(menu_item_name), SUM(quantity)
+                FROM (SELECT oi.menu_item_id, oi.menu_item_name, oi.quantity
+                      FROM order_items oi
+                      JOIN orders o ON o.id = oi.order_id
+                      WHERE o.status = 'Completed'
+                      UNION ALL
+                      SELECT menu_item_id, menu_item_name, quantity
+                      FROM archived_item_sales)
+                GROUP BY menu_item_id
+            """;
+
+            try (Statement stmt = connection().createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    aggregates.addItemSales(rs.getInt(1), rs.getString(2), rs.getInt(3));
+                }
+            } catch (SQLException e) {
+                Metrics.counter("db.errors").increment();
+                System.err.println("❌ Error loading item sales: " + e.getMessage());
+            }
+
+            loadRecentSales(aggregates, System.currentTimeMillis() - 7L * 24 * 60 * 60 * 1000);
+            return aggregates;
+        } finally {
+            Metrics.timer("db.loadSalesAggregates").stop(start);
+        }
+    }
+
+    // Feed the sold lines of the last days into the windowed best seller rankings;
+    // the created_at index limits the read to orders inside the window
+    private void loadRecentSales(SalesAggregates aggregates, long since) {
+        String sql = """
+            SELECT o.created_at, oi.menu_item_id, oi.menu_item_name, oi.quantity
+            FROM orders o
+            JOIN order_items oi ON oi.order_id = o.id
+            WHERE o.created_at >= ? AND o.status = 'Completed'
+        """;
+
+        try (PreparedStatement pstmt = connection().prepareStatement(sql)) {
+            pstmt.setLong(1, since);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    aggregates.addRecentSale(rs.getInt(2), rs.getString(3), rs.getInt(4), rs.getLong(1));
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error loading recent sales: " + e.getMessage());
+        }
+    }
+
+    // Completed sales with created_at in [from, to) in epoch millis: totals and quantity
+    // sold per item, for daily and shift reports. Both queries seek the created_at index.
+    // Archived months wholly inside the range come from their stored totals; a month
+    // the range only partly covers is attached and queried like the hot database.
+    public SalesSummary loadSalesBetween(long from, long to) {
+        long start = System.nanoTime();
+        ArrayList<SalesSummary> parts = new ArrayList<>();
+        try {
+            for (OrderArchiver.ArchivedMonth archive : archiver.getArchives()) {
+                if (archive.coveredBy(from, to)) {
+                    parts.add(archivedSales(archive));
+                } else if (archive.overlaps(from, to)) {
+                    parts.add(archiver.read(archive,
+                            connection -> salesBetween(connection, OrderArchiver.SCHEMA, from, to)));
+                }
+            }
+            parts.add(salesBetween(connection(), "main", from, to));
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error loading sales between dates: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.loadSalesBetween").stop(start);
+        }
+        return SalesSummary.combine(from, to, parts);
+    }
+
+    private SalesSummary salesBetween(Connection connection, String schema, long from, long to)
+            throws SQLException {
+        String totalsSql = """
+            SELECT COUNT(*), COALESCE(SUM(grand_total), 0), COALESCE(SUM(tax), 0)
+            FROM %1$s.orders
+            WHERE created_at >= ? AND created_at < ? AND status = 'Completed'
+        """;
+        String itemsSql = """
+            SELECT oi.menu_item_id, MAX(oi.menu_item_name), SUM(oi.quantity) AS sold
+            FROM %1$s.orders o
+            JOIN %1$s.order_items oi ON oi.order_id = o.id
+            WHERE o.created_at >= ? AND o.created_at < ? AND o.status = 'Completed'
+            GROUP BY oi.menu_item_id
+            ORDER BY sold DESC, oi.menu_item_id
+        """;
+
+        int orderCount = 0;
+        long totalSales = 0;
+        long totalTax = 0;
+        ArrayList<BestSellerTracker.Entry> items = new ArrayList<>();
+        try (PreparedStatement totals = connection.prepareStatement(totalsSql.formatted(schema));
+             PreparedStatement perItem = connection.prepareStatement(itemsSql.formatted(schema))) {
+            totals.setLong(1, from);
+            totals.setLong(2, to);
+            try (ResultSet rs = totals.executeQuery()) {
+                if (rs.next()) {
+                    orderCount = rs.getInt(1);
+                    totalSales = rs.getLong(2);
+                    totalTax = rs.getLong(3);
                 }
             }
+            perItem.setLong(1, from);
+            perItem.setLong(2, to);
+            try (ResultSet rs = perItem.executeQuery()) {
+                while (rs.next()) {
+                    items.add(new BestSellerTracker.Entry(rs.getInt(1), rs.getString(2), rs.getInt(3)));
+                }
+            }
+        }
+        return new SalesSummary(from, to, orderCount, totalSales, totalTax, items);
+    }
+
+    // A whole archived month from the totals kept in the hot database
+    private SalesSummary archivedSales(OrderArchiver.ArchivedMonth archive) throws SQLException {
+        String sql = """
+            SELECT menu_item_id, menu_item_name, quantity
+            FROM archived_item_sales
+            WHERE month = ?
+            ORDER BY quantity DESC, menu_item_id
+        """;
+
+        ArrayList<BestSellerTracker.Entry> items = new ArrayList<>();
+        try (PreparedStatement pstmt = connection().prepareStatement(sql)) {
+            pstmt.setString(1, archive.getMonth());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    items.add(new BestSellerTracker.Entry(rs.getInt(1), rs.getString(2), rs.getInt(3)));
+                }
+            }
+        }
+        return new SalesSummary(archive.getFrom(), archive.getTo(), archive.getOrderCount(),
+                archive.getTotalSales(), archive.getTotalTax(), items);
+    }
+
+    // Completed orders with created_at in [from, to), oldest first
+    public ArrayList<Order> loadCompletedOrdersBetween(ArrayList<MenuItem> menu, long from, long to) {
+        long start = System.nanoTime();
+        ArrayList<Order> orders = new ArrayList<>();
+        String sql = """
+            SELECT o.id, o.created_at, o.status, o.payment_method, o.payment_amount,
+                   o.total, o.tax, o.grand_total, oi.menu_item_id, oi.menu_item_name, oi.quantity, oi.price
+            FROM %1$s.orders o
+            LEFT JOIN %1$s.order_items oi ON oi.order_id = o.id
+            WHERE o.created_at >= ? AND o.created_at < ? AND o.status = 'Completed'
+            ORDER BY o.created_at, o.id, oi.id
+        """;
+
+        try {
+            HashMap<Integer, MenuItem> menuById = indexMenu(menu);
+            readAcross(from, to, (connection, schema) -> {
+                try (PreparedStatement pstmt = connection.prepareStatement(sql.formatted(schema))) {
+                    pstmt.setLong(1, from);
+                    pstmt.setLong(2, to);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        readOrders(rs, menuById, orders);
+                    }
+                }
+            });
         } catch (SQLException e) {
-            System.err.println("❌ Error loading order items: " + e.getMessage());
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error loading orders between dates: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.loadCompletedOrdersBetween").stop(start);
+        }
+        return orders;
+    }
+
+    private HashMap<Integer, MenuItem> indexMenu(ArrayList<MenuItem> menu) {
+        HashMap<Integer, MenuItem> menuById = new HashMap<>(menu.size() * 2);
+        for (MenuItem item : menu) {
+            menuById.put(item.getId(), item);
         }
+        return menuById;
     }
 
-    // Close connection
+    // Close every thread's connection
     public void close() {
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("✅ Database connection closed");
+            // Let SQLite refresh planner statistics that went stale during the session
+            try (Statement stmt = connection().createStatement()) {
+                stmt.execute("PRAGMA optimize");
             }
+            pool.closeAll();
+            System.out.println("✅ Database connection closed");
         } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
             System.err.println("❌ Error closing connection: " + e.getMessage());
         }
     }
@@ -1,14 +1,16 @@
 class Dessert extends MenuItem {
     private boolean hasIceCream;
 
-    public Dessert(String name, double price, int stock, boolean hasIceCream) {
+    public Dessert(String name, long price, int stock, boolean hasIceCream) {
         super(name, price, stock, "Dessert");
         this.hasIceCream = hasIceCream;
     }
 
+    public boolean hasIceCream() { return hasIceCream; }
+
     @Override
     public String getDescription() {
         String icon = hasIceCream ? "🍨" : "🍰";
-        return icon + " " + getName() + " - Rp " + String.format("%,.0f", getPrice());
+        return icon + " " + getName() + " - " + Money.format(getPrice());
     }
 }
\ No newline at end of file
@@ -1,14 +1,16 @@
 class Food extends MenuItem {
     private int spicyLevel; // 0-5
 
-    public Food(String name, double price, int stock, int spicyLevel) {
+    public Food(String name, long price, int stock, int spicyLevel) {
         super(name, price, stock, "Food");
         this.spicyLevel = spicyLevel;
     }
 
+    public int getSpicyLevel() { return spicyLevel; }
+
     @Override
     public String getDescription() {
         String spicy = spicyLevel > 0 ? " 🌶️x" + spicyLevel : "";
-        return "🍽️ " + getName() + spicy + " - Rp " + String.format("%,.0f", getPrice());
+        return "🍽️ " + getName() + spicy + " - " + Money.format(getPrice());
     }
 }
@@ -0,0 +1,703 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Adds or updates menu items in bulk from a franchise catalog, matched on SKU.
+// Rows are read one at a time from the file, checked, and compared with the
+// stored items; a row whose values are all unchanged is not written at all.
+// Like checkouts and restocks, the changes go through the order journal,
+// EVENT_ROWS rows per event, and the persistence writer projects them into
+// menu_items in journal order, so replaying the journal gives the same menu.
+// Nothing else may be journaled while an import runs: the app holds back
+// checkouts and restocks until it is done. The items that did change are read
+// back, so a running app can put just those into its menu.
+//
+// Columns (CSV header or JSON keys, any order, case-insensitive):
+//   sku, name, category (Food, Beverage or Dessert), price (whole rupiah),
+//   stock, spicy_level (0-5, Food), is_hot (Beverage), has_ice_cream (Dessert)
+// The first four are required, and a SKU may appear only once. Where stock or
+// an attribute is missing, an existing item keeps its own and a new one gets 0.
+// Flags are 1/0, true/false or yes/no.
+//
+// CSV: comma separated with a header line; fields in double quotes may hold
+// commas, line breaks and doubled quotes. JSON (.json, .jsonl): an array of
+// flat objects, or objects one after another.
+class MenuCatalogImporter {
+    private static final int EVENT_ROWS = 1000; // At most about 700 KB of journal record
+    private static final long PROJECTION_TIMEOUT_MS = 60_000;
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Projection of a catalog event: only rows with a value that differs are
+    // updated, and rows not updated are then inserted unless the SKU exists. Both
+    // statements take the same parameters; a NULL stock or attribute keeps the
+    // stored one. (INSERT OR IGNORE and upserts take an AUTOINCREMENT id even for
+    // a row that already exists.)
+    private static final String UPDATE_SQL = """
+        UPDATE menu_items
+        SET name = ?2, price = ?3, stock = COALESCE(?4, stock), category = ?5,
+            spicy_level = COALESCE(?6, spicy_level), is_hot = COALESCE(?7, is_hot),
+            has_ice_cream = COALESCE(?8, has_ice_cream)
+        WHERE sku = ?1
+          AND (name IS NOT ?2 OR price IS NOT ?3 OR stock IS NOT COALESCE(?4, stock) OR category IS NOT ?5
+               OR spicy_level IS NOT COALESCE(?6, spicy_level) OR is_hot IS NOT COALESCE(?7, is_hot)
+               OR has_ice_cream IS NOT COALESCE(?8, has_ice_cream))
+    """;
+
+    private static final String INSERT_SQL = """
+        INSERT INTO menu_items (sku, name, price, stock, category, spicy_level, is_hot, has_ice_cream)
+        SELECT ?1, ?2, ?3, COALESCE(?4, 0), ?5, COALESCE(?6, 0), COALESCE(?7, 0), COALESCE(?8, 0)
+        WHERE NOT EXISTS (SELECT 1 FROM menu_items WHERE sku = ?1)
+    """;
+
+    private final DatabaseManager dbManager;
+    private final PersistenceExecutor persistence;
+
+    // One checked catalog row, as journaled
+    static class CatalogRow {
+        private String sku;
+        private String name;
+        private String category;
+        private long price;
+        // null: keep the stored value, 0 for a new item
+        private Integer stock;
+        private Integer spicyLevel;
+        private Integer isHot;
+        private Integer hasIceCream;
+
+        private CatalogRow() {
+        }
+
+        CatalogRow(String sku, String name, long price, Integer stock, String category,
+                Integer spicyLevel, Integer isHot, Integer hasIceCream) {
+            this.sku = sku;
+            this.name = name;
+            this.price = price;
+            this.stock = stock;
+            this.category = category;
+            this.spicyLevel = spicyLevel;
+            this.isHot = isHot;
+            this.hasIceCream = hasIceCream;
+        }
+
+        public String getSku() { return sku; }
+        public String getName() { return name; }
+        public long getPrice() { return price; }
+        public Integer getStock() { return stock; }
+        public String getCategory() { return category; }
+        public Integer getSpicyLevel() { return spicyLevel; }
+        public Integer getIsHot() { return isHot; }
+        public Integer getHasIceCream() { return hasIceCream; }
+
+        // Whether projecting this row would change the stored one
+        private boolean differsFrom(CatalogRow stored) {
+            return !name.equals(stored.name) || price != stored.price || !category.equals(stored.category)
+                    || (stock != null && !stock.equals(stored.stock))
+                    || (spicyLevel != null && !spicyLevel.equals(stored.spicyLevel))
+                    || (isHot != null && !isHot.equals(stored.isHot))
+                    || (hasIceCream != null && !hasIceCream.equals(stored.hasIceCream));
+        }
+    }
+
+    // Reads raw rows, column name -> text, from a catalog file
+    private interface RowReader extends Closeable {
+        // Next row, or null at the end of the file
+        Map<String, String> next() throws IOException;
+
+        // Line the last row started on, for error messages
+        int getLine();
+    }
+
+    // Counts of one import and the menu items it added or changed
+    static class Result {
+        private int rows;
+        private int rejected;
+        private int inserted;
+        private int updated;
+        private int unchanged;
+        private long nanos;
+        private final ArrayList<MenuItem> changed = new ArrayList<>();
+
+        public int getRows() { return rows; }
+        public int getRejected() { return rejected; }
+        public int getInserted() { return inserted; }
+        public int getUpdated() { return updated; }
+        public int getUnchanged() { return unchanged; }
+
+        // Added or changed items, as now stored
+        public ArrayList<MenuItem> getChanged() { return changed; }
+
+        public long getRowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1_000_000_000L / nanos;
+        }
+
+        public String getSummary() {
+            return String.format("%,d rows in %.1f s (%,d rows/s): %,d new, %,d updated, %,d unchanged, %,d rejected",
+                    rows, nanos / 1e9, getRowsPerSecond(), inserted, updated, unchanged, rejected);
+        }
+    }
+
+    public MenuCatalogImporter(DatabaseManager dbManager, PersistenceExecutor persistence) {
+        this.dbManager = dbManager;
+        this.persistence = persistence;
+    }
+
+    // Import a CSV or JSON catalog. Rows that fail the checks are skipped and
+    // counted. Returns null if the file cannot be read, or the changes cannot
+    // be journaled or do not reach the database in time; events journaled
+    // before that are still projected, and importing the file again is safe.
+    public Result importFile(Path file) {
+        long start = System.nanoTime();
+        Result result = new Result();
+        HashSet<String> changedSkus = new HashSet<>();
+        try (RowReader reader = open(file)) {
+            // Compared against the tables, so they must hold every event journaled so far
+            awaitProjection();
+            HashMap<String, CatalogRow> stored = loadStored();
+            ArrayList<CatalogRow> chunk = new ArrayList<>(EVENT_ROWS);
+            HashSet<String> skus = new HashSet<>();
+            Map<String, String> raw;
+            while ((raw = reader.next()) != null) {
+                result.rows++;
+                try {
+                    CatalogRow row = validate(raw);
+                    if (!skus.add(row.sku)) {
+                        throw new IllegalArgumentException("sku " + row.sku + " appears more than once");
+                    }
+                    CatalogRow old = stored.get(row.sku);
+                    if (old == null || row.differsFrom(old)) {
+                        if (old == null) {
+                            result.inserted++;
+                        } else {
+                            result.updated++;
+                        }
+                        changedSkus.add(row.sku);
+                        chunk.add(row);
+                    }
+                } catch (IllegalArgumentException e) {
+                    result.rejected++;
+                    if (result.rejected <= MAX_REPORTED_ERRORS) {
+                        System.err.println("⚠️ " + file.getFileName() + " line " + reader.getLine() + ": "
+                                + e.getMessage());
+                    }
+                }
+                if (chunk.size() == EVENT_ROWS) {
+                    journal(chunk);
+                    chunk.clear();
+                }
+            }
+            journal(chunk);
+            result.unchanged = result.rows - result.rejected - result.inserted - result.updated;
+            awaitProjection();
+            readChanged(changedSkus, result);
+        } catch (NoSuchFileException e) {
+            Metrics.counter("catalog.errors").increment();
+            System.err.println("❌ Catalog file not found: " + file);
+            return null;
+        } catch (IOException | SQLException e) {
+            Metrics.counter("catalog.errors").increment();
+            System.err.println("❌ Error importing catalog " + file + ": " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Catalog import of " + file + " was interrupted");
+            return null;
+        } finally {
+            result.nanos = System.nanoTime() - start;
+            Metrics.timer("catalog.import").stop(start);
+        }
+
+        Metrics.counter("catalog.rows").add(result.rows);
+        Metrics.counter("catalog.rejected").add(result.rejected);
+        if (result.rejected > MAX_REPORTED_ERRORS) {
+            System.err.println("⚠️ " + (result.rejected - MAX_REPORTED_ERRORS) + " more rows rejected");
+        }
+        System.out.println("✅ Catalog imported: " + result.getSummary());
+        return result;
+    }
+
+    // Journal one event's rows for the writer to project
+    private void journal(List<CatalogRow> rows) throws IOException, InterruptedException {
+        if (!rows.isEmpty()) {
+            persistence.submitCatalog(OrderJournal.Event.catalog(rows));
+        }
+    }
+
+    private void awaitProjection() throws SQLException, InterruptedException {
+        if (!persistence.awaitProjection(PROJECTION_TIMEOUT_MS)) {
+            throw new SQLException("journaled changes did not reach the database within "
+                    + PROJECTION_TIMEOUT_MS / 1000 + " s; they are kept in the journal");
+        }
+    }
+
+    // Project a catalog event's rows, in one JDBC batch of updates and one of inserts.
+    // Runs in the writer's transaction; see DatabaseManager.applyJournal.
+    static void project(Connection connection, List<CatalogRow> rows) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(UPDATE_SQL);
+             PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            for (CatalogRow row : rows) {
+                bind(update, row);
+                update.addBatch();
+            }
+            int[] updates = update.executeBatch();
+            boolean inserting = false;
+            for (int i = 0; i < updates.length; i++) {
+                if (updates[i] == 0) {
+                    bind(insert, rows.get(i));
+                    insert.addBatch();
+                    inserting = true;
+                }
+            }
+            if (inserting) {
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, CatalogRow row) throws SQLException {
+        pstmt.setString(1, row.sku);
+        pstmt.setString(2, row.name);
+        pstmt.setLong(3, row.price);
+        pstmt.setObject(4, row.stock);
+        pstmt.setString(5, row.category);
+        pstmt.setObject(6, row.spicyLevel);
+        pstmt.setObject(7, row.isHot);
+        pstmt.setObject(8, row.hasIceCream);
+    }
+
+    // Items with a SKU as stored, by SKU
+    private HashMap<String, CatalogRow> loadStored() throws SQLException {
+        String sql = """
+            SELECT sku, name, price, stock, category, spicy_level, is_hot, has_ice_cream
+            FROM menu_items
+            WHERE sku IS NOT NULL
+        """;
+        HashMap<String, CatalogRow> stored = new HashMap<>();
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                stored.put(rs.getString(1), new CatalogRow(rs.getString(1), rs.getString(2), rs.getLong(3),
+                        rs.getInt(4), rs.getString(5), rs.getInt(6), rs.getInt(7), rs.getInt(8)));
+            }
+        }
+        return stored;
+    }
+
+    // Read the added and changed items back, ids included. With every journaled
+    // event projected, their stock is the stock the app should hold.
+    private void readChanged(HashSet<String> changedSkus, Result result) throws SQLException {
+        if (changedSkus.isEmpty()) {
+            return;
+        }
+        String sql = """
+            SELECT id, sku, name, price, stock, category, spicy_level, is_hot, has_ice_cream
+            FROM menu_items
+            WHERE sku IS NOT NULL
+        """;
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                if (!changedSkus.contains(rs.getString(2))) {
+                    continue;
+                }
+                result.changed.add(DatabaseManager.createMenuItem(rs.getInt(1), rs.getString(3), rs.getLong(4),
+                        rs.getInt(5), rs.getString(6), rs.getInt(7), rs.getInt(8) == 1, rs.getInt(9) == 1));
+            }
+        }
+    }
+
+    private static RowReader open(Path file) throws IOException {
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE);
+        in.mark(1);
+        if (in.read() != '\uFEFF') {
+            in.reset(); // No byte order mark
+        }
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".json") || name.endsWith(".jsonl")) {
+            return new JsonReader(in);
+        }
+        return new CsvReader(in);
+    }
+
+    private static CatalogRow validate(Map<String, String> raw) {
+        CatalogRow row = new CatalogRow();
+        row.sku = required(raw, "sku", 64);
+        row.name = required(raw, "name", 100);
+        String category = required(raw, "category", 20);
+        switch (category.toLowerCase(Locale.ROOT)) {
+            case "food":
+                row.category = "Food";
+                if (text(raw, "spicy_level") != null) {
+                    row.spicyLevel = (int) number(raw, "spicy_level", 5);
+                }
+                break;
+            case "beverage":
+                row.category = "Beverage";
+                row.isHot = flag(raw, "is_hot");
+                break;
+            case "dessert":
+                row.category = "Dessert";
+                row.hasIceCream = flag(raw, "has_ice_cream");
+                break;
+            default:
+                throw new IllegalArgumentException("unknown category \"" + category + "\"");
+        }
+        if (text(raw, "price") == null) {
+            throw new IllegalArgumentException("price is missing");
+        }
+        row.price = number(raw, "price", 1_000_000_000L);
+        if (text(raw, "stock") != null) {
+            row.stock = (int) number(raw, "stock", Integer.MAX_VALUE);
+        }
+        return row;
+    }
+
+    // Trimmed value, or null if the column is missing or empty
+    private static String text(Map<String, String> raw, String column) {
+        String value = raw.get(column);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String required(Map<String, String> raw, String column, int maxLength) {
+        String value = text(raw, column);
+        if (value == null) {
+            throw new IllegalArgumentException(column + " is missing");
+        }
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(column + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    // Whole number from 0 to max; 0 if the column is empty. "25000.00" is read as 25000.
+    private static long number(Map<String, String> raw, String column, long max) {
+        String value = text(raw, column);
+        if (value == null) {
+            return 0;
+        }
+        long number;
+        try {
+            number = new BigDecimal(value).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + value);
+        }
+        if (number < 0 || number > max) {
+            throw new IllegalArgumentException(column + " must be between 0 and " + max + ": " + value);
+        }
+        return number;
+    }
+
+    // 1 or 0, or null if the column is empty
+    private static Integer flag(Map<String, String> raw, String column) {
+        String value = text(raw, column);
+        if (value == null) {
+            return null;
+        }
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "1":
+            case "true":
+            case "yes":
+                return 1;
+            case "0":
+            case "false":
+            case "no":
+                return 0;
+            default:
+                throw new IllegalArgumentException(column + " is not a yes/no value: " + value);
+        }
+    }
+
+    private static class CsvReader implements RowReader {
+        private final BufferedReader in;
+        private final String[] header;
+        private int line;
+        private int recordLine;
+
+        CsvReader(BufferedReader in) throws IOException {
+            this.in = in;
+            List<String> columns = record();
+            if (columns == null) {
+                throw new IOException("the file is empty");
+            }
+            header = new String[columns.size()];
+            for (int i = 0; i < header.length; i++) {
+                header[i] = columns.get(i).trim().toLowerCase(Locale.ROOT);
+            }
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            List<String> fields;
+            do {
+                fields = record();
+            } while (fields != null && fields.size() == 1 && fields.get(0).isBlank()); // Empty line
+            if (fields == null) {
+                return null;
+            }
+            HashMap<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.length && i < fields.size(); i++) {
+                row.put(header[i], fields.get(i));
+            }
+            return row;
+        }
+
+        @Override
+        public int getLine() {
+            return recordLine;
+        }
+
+        // Fields of the next record, which a quoted line break continues on the next line
+        private List<String> record() throws IOException {
+            String text = in.readLine();
+            if (text == null) {
+                return null;
+            }
+            recordLine = ++line;
+            ArrayList<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    text = in.readLine();
+                    if (text == null) {
+                        throw new IOException("line " + recordLine + ": closing quote missing");
+                    }
+                    line++;
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // Only what a catalog needs: objects of strings, numbers, true, false and
+    // null. Numbers are passed on as their text and checked like CSV fields.
+    private static class JsonReader implements RowReader {
+        private final BufferedReader in;
+        private int pushedBack = -2;
+        private int line = 1;
+        private int objectLine;
+
+        JsonReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            int c = skipWhitespace();
+            while (c == '[' || c == ']' || c == ',') {
+                c = skipWhitespace();
+            }
+            if (c == -1) {
+                return null;
+            }
+            if (c != '{') {
+                throw error("expected an object");
+            }
+            objectLine = line;
+            HashMap<String, String> row = new HashMap<>();
+            c = skipWhitespace();
+            if (c == '}') {
+                return row;
+            }
+            while (true) {
+                if (c != '"') {
+                    throw error("expected a key");
+                }
+                String key = string().toLowerCase(Locale.ROOT);
+                if (skipWhitespace() != ':') {
+                    throw error("expected ':'");
+                }
+                row.put(key, value(skipWhitespace()));
+                c = skipWhitespace();
+                if (c == '}') {
+                    return row;
+                }
+                if (c != ',') {
+                    throw error("expected ',' or '}'");
+                }
+                c = skipWhitespace();
+            }
+        }
+
+        @Override
+        public int getLine() {
+            return objectLine;
+        }
+
+        private String value(int c) throws IOException {
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{' || c == '[') {
+                throw error("nested objects and arrays are not supported");
+            }
+            StringBuilder literal = new StringBuilder();
+            while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                literal.append((char) c);
+                c = read();
+            }
+            pushedBack = c;
+            String text = literal.toString();
+            if (text.isEmpty()) {
+                throw error("value missing");
+            }
+            return "null".equals(text) ? null : text;
+        }
+
+        // The rest of a string whose opening quote was read
+        private String string() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    throw error("closing quote missing");
+                }
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append((char) c);
+                    continue;
+                }
+                int escaped = read();
+                switch (escaped) {
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) {
+                            hex[i] = (char) read();
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(new String(hex), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("bad \\u escape");
+                        }
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append((char) escaped);
+                        break;
+                    default:
+                        throw error("bad escape");
+                }
+            }
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            do {
+                c = read();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c;
+        }
+
+        private int read() throws IOException {
+            if (pushedBack != -2) {
+                int c = pushedBack;
+                pushedBack = -2;
+                return c;
+            }
+            int c = in.read();
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+
+        private IOException error(String message) {
+            return new IOException("line " + line + ": " + message);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // java MenuCatalogImporter <catalog.csv | catalog.json>
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: MenuCatalogImporter <catalog.csv | catalog.json>");
+            System.exit(2);
+        }
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        dbManager.initializeDatabase();
+        OrderJournal journal;
+        try {
+            // Fails while the app is running, which holds the journal lock
+            journal = OrderJournal.open(dbManager, dbManager.getJournalFile());
+        } catch (IOException | SQLException e) {
+            System.err.println("❌ Error opening journal: " + e.getMessage());
+            dbManager.close();
+            System.exit(1);
+            return;
+        }
+        PersistenceExecutor persistence = new PersistenceExecutor(dbManager, journal, Runnable::run);
+        Result result = new MenuCatalogImporter(dbManager, persistence).importFile(Paths.get(args[0]));
+        persistence.shutdown();
+        journal.close();
+        dbManager.close();
+        if (result == null) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+// In-memory search over the menu:
+// - id lookup through a hash map
+// - prefix search through a trie of the lower-cased words of each name
+//   ("nas gor" finds "Nasi Goreng"); the walk stops once enough items are found
+// - fuzzy fallback through a trigram index when no name starts with the query,
+//   ranked by how many trigrams the names share with it (typos like "rendnag")
+// - category facets, to narrow a search and to count results per category
+class MenuIndex {
+    private static final double MIN_FUZZY_SCORE = 0.3;
+
+    private final HashMap<Integer, MenuItem> byId = new HashMap<>();
+    private final HashMap<String, ArrayList<MenuItem>> byCategory = new HashMap<>();
+    private final HashMap<String, ArrayList<MenuItem>> byTrigram = new HashMap<>();
+    private final TrieNode root = new TrieNode();
+
+    // Trie node; children are kept in small parallel arrays, most nodes have one or two
+    private static class TrieNode {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        private ArrayList<MenuItem> items; // Items with a word ending here
+
+        TrieNode child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        TrieNode addChild(char c) {
+            TrieNode node = child(c);
+            if (node == null) {
+                int n = keys.length;
+                keys = Arrays.copyOf(keys, n + 1);
+                children = Arrays.copyOf(children, n + 1);
+                keys[n] = c;
+                node = new TrieNode();
+                children[n] = node;
+            }
+            return node;
+        }
+    }
+
+    public MenuIndex(Collection<MenuItem> menu) {
+        for (MenuItem item : menu) {
+            put(item);
+        }
+    }
+
+    // Add an item, or replace the indexed item with the same id
+    public void put(MenuItem item) {
+        MenuItem old = byId.put(item.getId(), item);
+        if (old != null) {
+            unindex(old);
+        }
+        byCategory.computeIfAbsent(item.getCategory(), c -> new ArrayList<>()).add(item);
+        for (String word : words(item.getName())) {
+            TrieNode node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.addChild(word.charAt(i));
+            }
+            if (node.items == null) {
+                node.items = new ArrayList<>(1);
+            }
+            node.items.add(item);
+        }
+        for (String trigram : trigrams(item.getName())) {
+            byTrigram.computeIfAbsent(trigram, t -> new ArrayList<>()).add(item);
+        }
+    }
+
+    private void unindex(MenuItem item) {
+        byCategory.get(item.getCategory()).remove(item);
+        for (String word : words(item.getName())) {
+            TrieNode node = find(word);
+            if (node != null && node.items != null) {
+                node.items.remove(item);
+            }
+        }
+        for (String trigram : trigrams(item.getName())) {
+            ArrayList<MenuItem> posting = byTrigram.get(trigram);
+            if (posting != null) {
+                posting.remove(item);
+            }
+        }
+    }
+
+    public MenuItem byId(int id) {
+        return byId.get(id);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public TreeSet<String> getCategories() {
+        TreeSet<String> categories = new TreeSet<>();
+        byCategory.forEach((category, items) -> {
+            if (!items.isEmpty()) {
+                categories.add(category);
+            }
+        });
+        return categories;
+    }
+
+    // Items whose name has a word starting with every word of the query, in the
+    // given category (null = all). Falls back to fuzzy matching if none do.
+    public List<MenuItem> search(String query, String category, int limit) {
+        String[] queryWords = words(query);
+        if (queryWords.length == 0) {
+            List<MenuItem> all = category == null ? new ArrayList<>(byId.values()) : byCategory.get(category);
+            if (all == null) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(all.subList(0, Math.min(limit, all.size())));
+        }
+
+        ArrayList<MenuItem> results = new ArrayList<>();
+        TrieNode start = find(queryWords[0]);
+        if (start != null) {
+            collect(start, queryWords, category, limit, results, new HashSet<>());
+        }
+        if (results.isEmpty()) {
+            return fuzzy(query, category, limit);
+        }
+        return results;
+    }
+
+    // Count of items per category in a result list
+    public Map<String, Integer> facetCounts(List<MenuItem> results) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (MenuItem item : results) {
+            counts.merge(item.getCategory(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private TrieNode find(String prefix) {
+        TrieNode node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    // Depth-first walk below the first query word's node, checking the other words
+    private void collect(TrieNode node, String[] queryWords, String category, int limit,
+            ArrayList<MenuItem> results, HashSet<MenuItem> seen) {
+        if (node.items != null) {
+            for (MenuItem item : node.items) {
+                if (results.size() >= limit) {
+                    return;
+                }
+                if ((category == null || category.equals(item.getCategory()))
+                        && matchesAll(item, queryWords) && seen.add(item)) {
+                    results.add(item);
+                }
+            }
+        }
+        for (TrieNode child : node.children) {
+            if (results.size() >= limit) {
+                return;
+            }
+            collect(child, queryWords, category, limit, results, seen);
+        }
+    }
+
+    private boolean matchesAll(MenuItem item, String[] queryWords) {
+        if (queryWords.length == 1) {
+            return true; // Already matched by the trie walk
+        }
+        String[] nameWords = words(item.getName());
+        for (int q = 1; q < queryWords.length; q++) {
+            boolean found = false;
+            for (String word : nameWords) {
+                if (word.startsWith(queryWords[q])) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<MenuItem> fuzzy(String query, String category, int limit) {
+        ArrayList<String> queryTrigrams = trigrams(query);
+        HashMap<MenuItem, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            ArrayList<MenuItem> posting = byTrigram.get(trigram);
+            if (posting != null) {
+                for (MenuItem item : posting) {
+                    shared.merge(item, 1, Integer::sum);
+                }
+            }
+        }
+
+        // Dice coefficient between the query's and the name's trigram sets
+        ArrayList<Map.Entry<MenuItem, Double>> scored = new ArrayList<>();
+        for (Map.Entry<MenuItem, Integer> entry : shared.entrySet()) {
+            MenuItem item = entry.getKey();
+            if (category != null && !category.equals(item.getCategory())) {
+                continue;
+            }
+            int nameTrigrams = item.getName().trim().length() + 1;
+            double score = 2.0 * entry.getValue() / (queryTrigrams.size() + nameTrigrams);
+            if (score >= MIN_FUZZY_SCORE) {
+                scored.add(Map.entry(item, score));
+            }
+        }
+        scored.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+
+        ArrayList<MenuItem> results = new ArrayList<>();
+        for (int i = 0; i < scored.size() && i < limit; i++) {
+            results.add(scored.get(i).getKey());
+        }
+        return results;
+    }
+
+    private static String[] words(String text) {
+        String normalized = text.toLowerCase(Locale.ROOT).trim();
+        return normalized.isEmpty() ? new String[0] : normalized.split("\\s+");
+    }
+
+    // Trigrams of the lower-cased text padded with two spaces, so short names still have some
+    private static ArrayList<String> trigrams(String text) {
+        String padded = "  " + text.toLowerCase(Locale.ROOT).trim() + " ";
+        ArrayList<String> trigrams = new ArrayList<>(padded.length());
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            String trigram = padded.substring(i, i + 3);
+            if (!trigrams.contains(trigram)) {
+                trigrams.add(trigram);
+            }
+        }
+        return trigrams;
+    }
+}
@@ -1,14 +1,20 @@
+import java.util.concurrent.atomic.AtomicLong;
+
 abstract class MenuItem {
     private int id;
     private String name;
-    private double price;
-    private int stock;
+    private long price; // Rupiah
+    // High 32 bits: units on hand, low 32 bits: units reserved by open carts.
+    // Both halves change in one compare-and-set, so two carts can never
+    // reserve the same last unit and no lock is needed.
+    private final AtomicLong stockState;
     private String category;
+    private String priceText; // Formatted price, built on first use
 
-    public MenuItem(String name, double price, int stock, String category) {
+    public MenuItem(String name, long price, int stock, String category) {
         this.name = name;
         this.price = price;
-        this.stock = stock;
+        this.stockState = new AtomicLong(pack(stock, 0));
         this.category = category;
     }
 
@@ -23,31 +29,106 @@ abstract class MenuItem {
     // Encapsulation - Getters
     public int getId() { return id; }
     public String getName() { return name; }
-    public double getPrice() { return price; }
-    public int getStock() { return stock; }
+    public long getPrice() { return price; }
+    public int getStock() { return onHand(stockState.get()); }
+    public int getReserved() { return reserved(stockState.get()); }
     public String getCategory() { return category; }
 
+    // Formatted price; the price never changes, so it is formatted once
+    public String getPriceText() {
+        if (priceText == null) {
+            priceText = Money.format(price);
+        }
+        return priceText;
+    }
+
     // Encapsulation - Setter with validation
     public void setStock(int newStock) throws InvalidQuantityException {
         if (newStock < 0) {
             throw new InvalidQuantityException("Stock cannot be negative");
         }
-        this.stock = newStock;
+        long state;
+        do {
+            state = stockState.get();
+        } while (!stockState.compareAndSet(state, pack(newStock, reserved(state))));
+    }
+
+    // Units that can still be put in a cart
+    public int getAvailable() {
+        long state = stockState.get();
+        return Math.max(0, onHand(state) - reserved(state));
     }
 
+    // Hold units for a cart until it is paid, removed or abandoned
+    public void reserve(int quantity) throws OutOfStockException {
+        long state;
+        do {
+            state = stockState.get();
+            int available = onHand(state) - reserved(state);
+            if (quantity > available) {
+                throw new OutOfStockException(this.name + " out of stock! Available: " + Math.max(0, available));
+            }
+        } while (!stockState.compareAndSet(state, pack(onHand(state), reserved(state) + quantity)));
+    }
+
+    public void releaseReservation(int quantity) {
+        long state;
+        do {
+            state = stockState.get();
+        } while (!stockState.compareAndSet(state,
+                pack(onHand(state), Math.max(0, reserved(state) - quantity))));
+    }
+
+    // Turn reserved units into sold ones
+    public void commitReservation(int quantity) throws OutOfStockException {
+        long state;
+        do {
+            state = stockState.get();
+            if (quantity > onHand(state)) {
+                throw new OutOfStockException(this.name + " out of stock! Available: " + onHand(state));
+            }
+        } while (!stockState.compareAndSet(state,
+                pack(onHand(state) - quantity, Math.max(0, reserved(state) - quantity))));
+    }
+
+    // Undo commitReservation, for a sale that could not be saved
+    public void uncommitReservation(int quantity) {
+        long state;
+        do {
+            state = stockState.get();
+        } while (!stockState.compareAndSet(state, pack(onHand(state) + quantity, reserved(state) + quantity)));
+    }
+
+    // Sell units that were never reserved
     public void reduceStock(int quantity) throws OutOfStockException {
-        if (quantity > this.stock) {
-            throw new OutOfStockException(this.name + " out of stock! Available: " + this.stock);
-        }
-        this.stock -= quantity;
+        long state;
+        do {
+            state = stockState.get();
+            int available = onHand(state) - reserved(state);
+            if (quantity > available) {
+                throw new OutOfStockException(this.name + " out of stock! Available: " + Math.max(0, available));
+            }
+        } while (!stockState.compareAndSet(state, pack(onHand(state) - quantity, reserved(state))));
     }
 
     public void addStock(int quantity) {
-        this.stock += quantity;
+        stockState.addAndGet((long) quantity << 32);
+    }
+
+    private static long pack(int onHand, int reserved) {
+        return ((long) onHand << 32) | (reserved & 0xFFFFFFFFL);
+    }
+
+    private static int onHand(long state) {
+        return (int) (state >> 32);
+    }
+
+    private static int reserved(long state) {
+        return (int) state;
     }
 
     @Override
     public String toString() {
-        return name + " - Rp " + String.format("%,.0f", price);
+        return name + " - " + Money.format(price);
     }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+// Menu list for the cashier tab. The text of each row is built once and kept
+// until that item's stock changes, so painting a cell is an array read instead
+// of a string build. Changes are pushed per item and only repaint that row.
+class MenuListModel extends AbstractListModel<MenuItem> {
+    private final ArrayList<MenuItem> items = new ArrayList<>();
+    private final HashMap<Integer, Integer> rowById = new HashMap<>();
+    private String[] displayText = new String[0];
+
+    public MenuListModel(List<MenuItem> items) {
+        setItems(items);
+    }
+
+    // Replace the shown items
+    public void setItems(List<MenuItem> newItems) {
+        int oldSize = items.size();
+        items.clear();
+        items.addAll(newItems);
+        rowById.clear();
+        for (int row = 0; row < items.size(); row++) {
+            rowById.put(items.get(row).getId(), row);
+        }
+        displayText = new String[items.size()];
+
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        if (!items.isEmpty()) {
+            fireIntervalAdded(this, 0, items.size() - 1);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return items.size();
+    }
+
+    @Override
+    public MenuItem getElementAt(int index) {
+        return items.get(index);
+    }
+
+    // Cached "description | Stock: n" text of a row
+    public String getDisplayText(int row) {
+        String text = displayText[row];
+        if (text == null) {
+            MenuItem item = items.get(row);
+            text = item.getDescription() + " | Stock: " + item.getAvailable();
+            displayText[row] = text;
+        }
+        return text;
+    }
+
+    // Stock of an item changed; rebuild its text and repaint its row only
+    public void itemChanged(MenuItem item) {
+        Integer row = rowById.get(item.getId());
+        if (row != null) {
+            displayText[row] = null;
+            fireContentsChanged(this, row, row);
+        }
+    }
+
+    public void itemsChanged(Collection<MenuItem> changed) {
+        for (MenuItem item : changed) {
+            itemChanged(item);
+        }
+    }
+}
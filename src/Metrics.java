@@ -0,0 +1,357 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.ActionListener;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+// Timing histograms and counters for the hot paths (database calls, payment,
+// EDT handlers). Recording is lock-free, so it can stay on in production.
+// The numbers are published as the JMX MXBean "cektipis:type=Metrics" (JConsole,
+// VisualVM) and appended to a CSV file every minute:
+//   -Dcektipis.metrics=<file>            CSV file (default metrics.csv, "off" disables it)
+//   -Dcektipis.metrics.interval=<secs>   seconds between dumps (default 60)
+public final class Metrics implements MetricsMXBean {
+    private static final ConcurrentHashMap<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final DateTimeFormatter CSV_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static ScheduledExecutorService reporter;
+    private static long dispatchedEvents; // EDT only
+    // EDT only: the event a timed listener ends its run at if it opens a modal
+    // dialog (the first one dispatched inside it), and when that event started
+    private static long dialogEvent = -1;
+    private static long dialogStart;
+
+    // Each power of two is split into 8 sub-buckets, so a percentile read from
+    // the histogram is within about 12% of the true value
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    // Latency histogram of one operation, in nanoseconds
+    public static final class Timer {
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        // Record the time since start, a System.nanoTime() taken before the operation
+        public void stop(long start) {
+            record(System.nanoTime() - start);
+        }
+
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            buckets.incrementAndGet(bucketOf(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        public TimerStats snapshot() {
+            long[] counts = new long[BUCKETS];
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                n += counts[i];
+            }
+            long total = totalNanos.sum();
+            long max = maxNanos.get();
+            return new TimerStats(name, n, n == 0 ? 0 : total / n, Math.min(max, percentile(counts, n, 0.50)),
+                    Math.min(max, percentile(counts, n, 0.99)), max, total);
+        }
+
+        private void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+        }
+    }
+
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    // Read-only view of a timer; times are in microseconds
+    public static final class TimerStats {
+        private final String name;
+        private final long count;
+        private final long meanNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+        private final long totalNanos;
+
+        TimerStats(String name, long count, long meanNanos, long p50Nanos, long p99Nanos, long maxNanos, long totalNanos) {
+            this.name = name;
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.totalNanos = totalNanos;
+        }
+
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public double getMeanMicros() { return meanNanos / 1000.0; }
+        public double getP50Micros() { return p50Nanos / 1000.0; }
+        public double getP99Micros() { return p99Nanos / 1000.0; }
+        public double getMaxMicros() { return maxNanos / 1000.0; }
+        public double getTotalMillis() { return totalNanos / 1_000_000.0; }
+    }
+
+    private Metrics() {
+    }
+
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new Counter());
+    }
+
+    // Register the MXBean and start the periodic CSV dump
+    public static synchronized void start() {
+        if (reporter != null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(), new ObjectName("cektipis:type=Metrics"));
+        } catch (Exception e) {
+            System.err.println("❌ Error registering metrics MBean: " + e.getMessage());
+        }
+
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Path csv = csvFile();
+        if (csv != null) {
+            long interval = Long.getLong("cektipis.metrics.interval", 60);
+            reporter.scheduleAtFixedRate(() -> appendCsv(csv), interval, interval, TimeUnit.SECONDS);
+            System.out.println("📈 Metrics every " + interval + "s to " + csv.toAbsolutePath());
+        }
+    }
+
+    // Stop the periodic dump after writing the final numbers
+    public static synchronized void stop() {
+        if (reporter == null) {
+            return;
+        }
+        reporter.shutdownNow();
+        reporter = null;
+        Path csv = csvFile();
+        if (csv != null) {
+            appendCsv(csv);
+        }
+    }
+
+    // Time every event the EDT dispatches, so slow listeners and repaints show up
+    // even when they are not one of the timed handlers. An event that opened a
+    // modal dialog ran the dialog's events inside it; it is counted under
+    // edt.modalEvents instead, since its time is mostly the user reading the dialog.
+    public static void timeEventDispatch() {
+        Timer dispatch = timer("edt.dispatch");
+        Counter modal = counter("edt.modalEvents");
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new EventQueue() {
+            @Override
+            protected void dispatchEvent(AWTEvent event) {
+                long before = ++dispatchedEvents;
+                long start = System.nanoTime();
+                if (before == dialogEvent) {
+                    dialogStart = start;
+                }
+                try {
+                    super.dispatchEvent(event);
+                } finally {
+                    if (dispatchedEvents == before) {
+                        dispatch.stop(start);
+                    } else {
+                        modal.increment();
+                    }
+                }
+            }
+        });
+    }
+
+    // Listener that records how long it held the EDT under "edt.<name>". A run
+    // that opened a modal dialog is timed up to the first event the dialog
+    // dispatched, so the handler's own work counts but not the user reading the
+    // dialog. That needs timeEventDispatch to be installed; without it the
+    // whole run is recorded.
+    public static ActionListener timed(String name, ActionListener listener) {
+        Timer timer = timer("edt." + name);
+        return e -> {
+            long before = dispatchedEvents;
+            long outerDialogEvent = dialogEvent; // A timed listener may run inside another's dialog
+            long outerDialogStart = dialogStart;
+            dialogEvent = before + 1;
+            long start = System.nanoTime();
+            try {
+                listener.actionPerformed(e);
+            } finally {
+                if (dispatchedEvents == before) {
+                    timer.stop(start);
+                } else {
+                    timer.record(dialogStart - start);
+                }
+                dialogEvent = outerDialogEvent;
+                dialogStart = outerDialogStart;
+            }
+        };
+    }
+
+    private static Path csvFile() {
+        String file = System.getProperty("cektipis.metrics", "metrics.csv");
+        return "off".equalsIgnoreCase(file) ? null : Paths.get(file);
+    }
+
+    private static synchronized void appendCsv(Path csv) {
+        boolean header = !Files.exists(csv);
+        String now = LocalDateTime.now().format(CSV_TIME);
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (header) {
+                out.write("time,metric,type,count,total_ms,mean_us,p50_us,p99_us,max_us");
+                out.newLine();
+            }
+            for (TimerStats stats : timerStats()) {
+                out.write(String.format(Locale.ROOT, "%s,%s,timer,%d,%.3f,%.1f,%.1f,%.1f,%.1f", now, stats.getName(),
+                        stats.getCount(), stats.getTotalMillis(), stats.getMeanMicros(), stats.getP50Micros(),
+                        stats.getP99Micros(), stats.getMaxMicros()));
+                out.newLine();
+            }
+            for (Map.Entry<String, Long> counter : counterValues().entrySet()) {
+                out.write(now + "," + counter.getKey() + ",counter," + counter.getValue() + ",,,,,");
+                out.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error writing metrics: " + e.getMessage());
+        }
+    }
+
+    private static List<TimerStats> timerStats() {
+        List<TimerStats> stats = new ArrayList<>();
+        for (String name : new TreeMap<>(TIMERS).keySet()) {
+            stats.add(TIMERS.get(name).snapshot());
+        }
+        return stats;
+    }
+
+    private static Map<String, Long> counterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.get()));
+        return values;
+    }
+
+    // Values of 0-7 get their own bucket; above that each power of two is split in 8
+    private static int bucketOf(long nanos) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(nanos | 1);
+        if (magnitude < SUB_BUCKET_BITS) {
+            return (int) nanos;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (nanos >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Middle of the bucket's value range
+    private static long bucketValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return low + ((1L << shift) >> 1);
+    }
+
+    private static long percentile(long[] counts, long total, double p) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bucketValue(i);
+            }
+        }
+        return bucketValue(counts.length - 1);
+    }
+
+    // MetricsMXBean
+
+    @Override
+    public List<TimerStats> getTimers() {
+        return timerStats();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return counterValues();
+    }
+
+    @Override
+    public void reset() {
+        TIMERS.values().forEach(Timer::reset);
+        COUNTERS.values().forEach(counter -> counter.value.reset());
+    }
+
+    @Override
+    public void dumpCsv() {
+        Path csv = csvFile();
+        if (csv != null) {
+            appendCsv(csv);
+        }
+    }
+}
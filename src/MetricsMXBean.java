@@ -0,0 +1,15 @@
+import java.util.List;
+import java.util.Map;
+
+// JMX view of Metrics, registered as "cektipis:type=Metrics"
+public interface MetricsMXBean {
+    List<Metrics.TimerStats> getTimers();
+
+    Map<String, Long> getCounters();
+
+    // Start counting from zero, e.g. before a busy hour
+    void reset();
+
+    // Append the current numbers to the metrics CSV now
+    void dumpCsv();
+}
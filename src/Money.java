@@ -0,0 +1,47 @@
+import java.text.DecimalFormatSymbols;
+
+// Money is kept as a long number of rupiah (the smallest unit we charge), so
+// sums are exact and need no boxing. This class formats it for display.
+final class Money {
+    private static final char GROUPING = DecimalFormatSymbols.getInstance().getGroupingSeparator();
+
+    private Money() {
+    }
+
+    // "Rp 25,000"
+    public static String format(long amount) {
+        StringBuilder sb = new StringBuilder(20);
+        sb.append("Rp ");
+        appendGrouped(sb, amount);
+        return sb.toString();
+    }
+
+    // Amount with thousands separators, same grouping as "%,d"
+    public static void appendGrouped(StringBuilder sb, long amount) {
+        if (amount < 0) {
+            sb.append('-');
+            amount = -amount;
+        }
+        int start = sb.length();
+        int digits = 0;
+        do {
+            if (digits > 0 && digits % 3 == 0) {
+                sb.append(GROUPING);
+            }
+            sb.append((char) ('0' + amount % 10));
+            amount /= 10;
+            digits++;
+        } while (amount > 0);
+        // Digits were written backwards
+        for (int i = start, j = sb.length() - 1; i < j; i++, j--) {
+            char c = sb.charAt(i);
+            sb.setCharAt(i, sb.charAt(j));
+            sb.setCharAt(j, c);
+        }
+    }
+
+    // 10% tax, rounded half up to whole rupiah
+    public static long tax(long amount) {
+        return (amount + 5) / 10;
+    }
+}
@@ -1,18 +1,32 @@
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 
 class Order {
     private int orderId;
     private ArrayList<OrderItem> items;
+    private HashMap<Integer, OrderItem> itemsById;
+    // Running totals, kept up to date by every line change
+    private long total;
+    private long tax;
+    private long grandTotal;
     private Date timestamp;
     private String status;
     private String paymentMethod;
-    private double paymentAmount;
+    private long paymentAmount;
+    private long lastActivity; // Last cart change, for abandoning idle carts
+
+    // Renderers reuse their buffers, so each thread gets its own
+    private static final ThreadLocal<ReceiptRenderer> RECEIPTS = ThreadLocal.withInitial(ReceiptRenderer::new);
 
     // Inner Class
     class OrderItem {
         private MenuItem menuItem;
         private int quantity;
+        private int position; // Index in items
 
         public OrderItem(MenuItem menuItem, int quantity) {
             this.menuItem = menuItem;
@@ -21,129 +35,206 @@ class Order {
 
         public MenuItem getMenuItem() { return menuItem; }
         public int getQuantity() { return quantity; }
-        public void setQuantity(int qty) { this.quantity = qty; }
 
-        public double getSubtotal() {
+        public void setQuantity(int qty) {
+            addToTotal(menuItem.getPrice() * (qty - quantity));
+            this.quantity = qty;
+        }
+
+        public long getSubtotal() {
             return menuItem.getPrice() * quantity;
         }
     }
 
     public Order() {
         this.items = new ArrayList<>();
+        this.itemsById = new HashMap<>();
         this.timestamp = new Date();
         this.status = "Pending";
+        this.lastActivity = System.currentTimeMillis();
+    }
+
+    // Add to the cart, reserving the stock for it
+    public void addItem(MenuItem menuItem, int quantity) throws OutOfStockException {
+        menuItem.reserve(quantity);
+        lastActivity = System.currentTimeMillis();
+        putItem(menuItem, quantity);
     }
 
-    public void addItem(MenuItem menuItem, int quantity) {
+    private void putItem(MenuItem menuItem, int quantity) {
         // Check if item already exists
-        for (OrderItem item : items) {
-            if (item.getMenuItem().getId() == menuItem.getId()) {
-                item.setQuantity(item.getQuantity() + quantity);
-                return;
-            }
+        OrderItem existing = itemsById.get(menuItem.getId());
+        if (existing != null) {
+            existing.setQuantity(existing.getQuantity() + quantity);
+            return;
         }
-        items.add(new OrderItem(menuItem, quantity));
+        OrderItem item = new OrderItem(menuItem, quantity);
+        item.position = items.size();
+        items.add(item);
+        itemsById.put(menuItem.getId(), item);
+        addToTotal(item.getSubtotal());
     }
 
     public void removeItem(int menuItemId) {
-        items.removeIf(item -> item.getMenuItem().getId() == menuItemId);
+        OrderItem item = itemsById.remove(menuItemId);
+        if (item == null) {
+            return;
+        }
+        item.getMenuItem().releaseReservation(item.getQuantity());
+        lastActivity = System.currentTimeMillis();
+        items.remove(item.position);
+        for (int i = item.position; i < items.size(); i++) {
+            items.get(i).position = i;
+        }
+        addToTotal(-item.getSubtotal());
     }
 
-    public void updateQuantity(int menuItemId, int newQuantity) throws InvalidQuantityException {
+    public void updateQuantity(int menuItemId, int newQuantity) throws InvalidQuantityException, OutOfStockException {
         if (newQuantity <= 0) {
             throw new InvalidQuantityException("Quantity must be greater than 0");
         }
 
-        for (OrderItem item : items) {
-            if (item.getMenuItem().getId() == menuItemId) {
-                item.setQuantity(newQuantity);
-                return;
+        OrderItem item = itemsById.get(menuItemId);
+        if (item != null) {
+            int delta = newQuantity - item.getQuantity();
+            if (delta > 0) {
+                item.getMenuItem().reserve(delta);
+            } else {
+                item.getMenuItem().releaseReservation(-delta);
             }
+            item.setQuantity(newQuantity);
+            lastActivity = System.currentTimeMillis();
         }
     }
 
-    public double getTotal() {
-        double total = 0;
+    // Give back the stock held by an unpaid cart (cleared or abandoned)
+    public void releaseReservations() {
+        if (!"Pending".equals(status)) {
+            return;
+        }
         for (OrderItem item : items) {
-            total += item.getSubtotal();
+            item.getMenuItem().releaseReservation(item.getQuantity());
         }
-        return total;
+        items.clear();
+        itemsById.clear();
+        addToTotal(-total);
     }
 
-    public double getTax() {
-        return getTotal() * 0.10; // 10% tax
+    // True if the cart holds stock and has not been touched for the given time
+    public boolean isIdle(long millis) {
+        return !items.isEmpty() && System.currentTimeMillis() - lastActivity >= millis;
     }
 
-    public double getGrandTotal() {
-        return getTotal() + getTax();
+    // Line for a menu item, or null if it is not in the order
+    public OrderItem getItem(int menuItemId) {
+        return itemsById.get(menuItemId);
     }
 
-    public double processPayment(double amount, String method) throws InvalidPaymentException, OutOfStockException {
-        double total = getGrandTotal();
+    // Row index of a menu item's line, or -1 if it is not in the order
+    public int indexOf(int menuItemId) {
+        OrderItem item = itemsById.get(menuItemId);
+        return item == null ? -1 : item.position;
+    }
 
-        if (amount < total) {
-            throw new InvalidPaymentException("Insufficient payment! Required: Rp " + String.format("%,.0f", total));
-        }
+    private void addToTotal(long amount) {
+        total += amount;
+        tax = Money.tax(total); // 10% tax
+        grandTotal = total + tax;
+    }
 
-        // Reduce stock for all items
-        for (OrderItem item : items) {
-            item.getMenuItem().reduceStock(item.getQuantity());
-        }
+    public long getTotal() {
+        return total;
+    }
 
-        this.status = "Completed";
-        this.paymentMethod = method;
-        this.paymentAmount = amount;
+    public long getTax() {
+        return tax;
+    }
 
-        return amount - total; // Change
+    public long getGrandTotal() {
+        return grandTotal;
     }
 
-    public String getReceipt() {
-        StringBuilder receipt = new StringBuilder();
-        receipt.append("\n╔════════════════════════════════════╗\n");
-        receipt.append("║     WARUNG PADANG SEDERHANA       ║\n");
-        receipt.append("║      Jl. Merdeka No. 123          ║\n");
-        receipt.append("╠════════════════════════════════════╣\n");
-        receipt.append(String.format("  Order #%04d\n", orderId));
-        receipt.append("  " + timestamp.toString() + "\n");
-        receipt.append("────────────────────────────────────\n");
+    public long processPayment(long amount, String method) throws InvalidPaymentException, OutOfStockException {
+        long start = System.nanoTime();
+        try {
+            long total = getGrandTotal();
+
+            if (amount < total) {
+                Metrics.counter("order.paymentsRejected").increment();
+                throw new InvalidPaymentException("Insufficient payment! Required: " + Money.format(total));
+            }
+
+            // Stock was reserved when the items were added; make sure it is all still
+            // on hand before turning the reservations into sales
+            for (OrderItem item : items) {
+                if (item.getQuantity() > item.getMenuItem().getStock()) {
+                    Metrics.counter("order.paymentsRejected").increment();
+                    throw new OutOfStockException(item.getMenuItem().getName() + " out of stock! Available: "
+                            + item.getMenuItem().getStock());
+                }
+            }
+            for (OrderItem item : items) {
+                item.getMenuItem().commitReservation(item.getQuantity());
+            }
+
+            this.status = "Completed";
+            this.paymentMethod = method;
+            this.paymentAmount = amount;
+
+            return amount - total; // Change
+        } finally {
+            Metrics.timer("order.processPayment").stop(start);
+        }
+    }
 
+    // Turn a payment that could not be saved back into the cart it was, with its
+    // stock reserved again
+    public void cancelPayment() {
+        if (!"Completed".equals(status)) {
+            return;
+        }
         for (OrderItem item : items) {
-            String name = String.format("%-20s", item.getMenuItem().getName());
-            String qty = String.format("%4dx", item.getQuantity());
-            String price = String.format("%12s", "Rp " + String.format("%,.0f", item.getSubtotal()));
-            receipt.append(name + " " + qty + " " + price + "\n");
+            item.getMenuItem().uncommitReservation(item.getQuantity());
         }
+        this.status = "Pending";
+        this.paymentMethod = null;
+        this.paymentAmount = 0;
+    }
 
-        receipt.append("────────────────────────────────────\n");
-        receipt.append(String.format("%-30s %12s\n", "Subtotal:", "Rp " + String.format("%,.0f", getTotal())));
-        receipt.append(String.format("%-30s %12s\n", "Tax (10%):", "Rp " + String.format("%,.0f", getTax())));
-        receipt.append("────────────────────────────────────\n");
-        receipt.append(String.format("%-30s %12s\n", "TOTAL:", "Rp " + String.format("%,.0f", getGrandTotal())));
-        receipt.append(String.format("%-30s %12s\n", "Payment (" + paymentMethod + "):", "Rp " + String.format("%,.0f", paymentAmount)));
-        receipt.append(String.format("%-30s %12s\n", "Change:", "Rp " + String.format("%,.0f", paymentAmount - getGrandTotal())));
-        receipt.append("────────────────────────────────────\n");
-        receipt.append("    Terima Kasih! 🙏\n");
-        receipt.append("    Selamat Menikmati! 😋\n");
-        receipt.append("╚════════════════════════════════════╝\n");
+    public String getReceipt() {
+        return RECEIPTS.get().renderText(this);
+    }
 
-        return receipt.toString();
+    // Raw ESC/POS bytes of the receipt for a thermal printer
+    public ByteBuffer getReceiptEscPos() {
+        return RECEIPTS.get().renderEscPos(this);
     }
 
-    public ArrayList<OrderItem> getItems() { return items; }
+    public List<OrderItem> getItems() { return Collections.unmodifiableList(items); }
     public int getOrderId() { return orderId; }
     public Date getTimestamp() { return timestamp; }
     public String getStatus() { return status; }
     public String getPaymentMethod() { return paymentMethod; }
-    public double getPaymentAmount() { return paymentAmount; }
+    public long getPaymentAmount() { return paymentAmount; }
 
     // Setters for loading from database
     public void setOrderId(int orderId) { this.orderId = orderId; }
+    public void setTimestamp(Date timestamp) { this.timestamp = timestamp; }
     public void setStatus(String status) { this.status = status; }
     public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
-    public void setPaymentAmount(double paymentAmount) { this.paymentAmount = paymentAmount; }
+    public void setPaymentAmount(long paymentAmount) { this.paymentAmount = paymentAmount; }
 
-    // Add item without checking for duplicates (for loading from database)
+    // Add item when loading from database; the duplicate check is a hash lookup
+    // and no stock is reserved for orders that were already paid
     public void addItemForLoading(MenuItem menuItem, int quantity) {
-        items.add(new OrderItem(menuItem, quantity));
+        putItem(menuItem, quantity);
+    }
+
+    // Totals as they were paid, for an order loaded from the database; its lines
+    // carry today's menu prices, which may have changed since
+    public void setStoredTotals(long total, long tax, long grandTotal) {
+        this.total = total;
+        this.tax = tax;
+        this.grandTotal = grandTotal;
     }
 }
@@ -0,0 +1,327 @@
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+
+// Moves the orders of closed months out of the hot database into one SQLite
+// file per month (archive/cektipis-2025-01.db next to cektipis.db), so checkout
+// writes, startup and history paging only deal with recent orders.
+// order_archives keeps each archived month's totals and archived_item_sales its
+// quantity sold per menu item, so all-time aggregates never open an archive;
+// reports over an archived period ATTACH the month's file and query it directly.
+class OrderArchiver {
+    // Name an archive file is attached under while it is written or read
+    static final String SCHEMA = "archive";
+    private static final int INCREMENTAL = 2; // PRAGMA auto_vacuum value
+
+    private final DatabaseManager dbManager;
+    private final File directory;
+    private final String baseName;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // One archived month, as recorded in order_archives
+    static class ArchivedMonth {
+        private final String month;
+        private final File file;
+        private final long from;
+        private final long to;
+        private final int orderCount;
+        private final long totalSales;
+        private final long totalTax;
+        private final int firstOrderId;
+        private final int lastOrderId;
+
+        ArchivedMonth(String month, File file, long from, long to, int orderCount, long totalSales,
+                long totalTax, int firstOrderId, int lastOrderId) {
+            this.month = month;
+            this.file = file;
+            this.from = from;
+            this.to = to;
+            this.orderCount = orderCount;
+            this.totalSales = totalSales;
+            this.totalTax = totalTax;
+            this.firstOrderId = firstOrderId;
+            this.lastOrderId = lastOrderId;
+        }
+
+        public String getMonth() { return month; }
+        public File getFile() { return file; }
+        public long getFrom() { return from; }
+        public long getTo() { return to; }
+        public int getOrderCount() { return orderCount; }
+        public long getTotalSales() { return totalSales; }
+        public long getTotalTax() { return totalTax; }
+        // Completed order ids held by the archive, 0 if it has none
+        public int getFirstOrderId() { return firstOrderId; }
+        public int getLastOrderId() { return lastOrderId; }
+
+        public boolean overlaps(long rangeFrom, long rangeTo) {
+            return from < rangeTo && rangeFrom < to;
+        }
+
+        public boolean coveredBy(long rangeFrom, long rangeTo) {
+            return rangeFrom <= from && to <= rangeTo;
+        }
+    }
+
+    public OrderArchiver(DatabaseManager dbManager, File databaseFile) {
+        this.dbManager = dbManager;
+        File absolute = databaseFile.getAbsoluteFile();
+        this.directory = new File(absolute.getParentFile(), "archive");
+        this.baseName = absolute.getName().replaceFirst("\\.db$", "");
+    }
+
+    // Archive every month older than the last hotMonths calendar months, the
+    // current month counting as one. At least two stay hot so the last 7 days
+    // read at startup are always in the hot database. Returns the orders moved;
+    // the pages they took stay free in the hot file until reclaimSpace().
+    public int archiveClosedMonths(int hotMonths) {
+        if (hotMonths < 2) {
+            throw new IllegalArgumentException("At least 2 months must stay in the hot database");
+        }
+        long start = System.nanoTime();
+        long cutoff = startOf(YearMonth.now(zone).minusMonths(hotMonths - 1));
+        int moved = 0;
+        try {
+            long oldest;
+            while ((oldest = oldestOrderBefore(cutoff)) >= 0) {
+                moved += archiveMonth(YearMonth.from(Instant.ofEpochMilli(oldest).atZone(zone)));
+            }
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error archiving orders: " + e.getMessage());
+        } finally {
+            Metrics.timer("db.archiveClosedMonths").stop(start);
+        }
+        return moved;
+    }
+
+    // Hand the hot file's free pages back, so it actually shrinks after
+    // archiving. With auto_vacuum=INCREMENTAL, which new databases get (see
+    // ConnectionPool), that only cuts them off the end of the file. A database
+    // from before needs one full VACUUM to switch over, which rewrites the whole
+    // file, so this runs in the background once the app is up. Returns the pages
+    // freed, or -1 on failure.
+    public long reclaimSpace() {
+        long start = System.nanoTime();
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            long free = pragma(stmt, "freelist_count");
+            if (free == 0) {
+                return 0;
+            }
+            if (pragma(stmt, "auto_vacuum") == INCREMENTAL) {
+                // Frees one page per step; execute() would only take the first
+                stmt.executeUpdate("PRAGMA incremental_vacuum");
+            } else {
+                System.out.println("🧹 Switching the database to incremental vacuum, once");
+                stmt.execute("PRAGMA auto_vacuum = " + INCREMENTAL);
+                stmt.execute("VACUUM");
+            }
+            Metrics.counter("db.pagesReclaimed").add(free);
+            return free;
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error reclaiming database space: " + e.getMessage());
+            return -1;
+        } finally {
+            Metrics.timer("db.reclaimSpace").stop(start);
+        }
+    }
+
+    private static long pragma(Statement stmt, String name) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA " + name)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // created_at of the oldest order before the cutoff, or -1 if there is none
+    private long oldestOrderBefore(long cutoff) throws SQLException {
+        String sql = "SELECT MIN(created_at) FROM main.orders WHERE created_at < ?";
+        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
+            pstmt.setLong(1, cutoff);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                long oldest = rs.next() ? rs.getLong(1) : 0;
+                return rs.wasNull() ? -1 : oldest;
+            }
+        }
+    }
+
+    // Transactions spanning attached files are not atomic in WAL mode, so a month
+    // moves in two: the copy is committed to the archive file first, and only then
+    // are the hot rows deleted together with the registry update. A crash between
+    // the two leaves the rows in both files; the next run copies them again, the
+    // copies are ignored as duplicates, and the delete completes.
+    private int archiveMonth(YearMonth month) throws SQLException {
+        long from = startOf(month);
+        long to = startOf(month.plusMonths(1));
+        File file = fileFor(month);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new SQLException("Cannot create archive directory " + directory);
+        }
+
+        Connection connection = dbManager.getConnection();
+        attach(connection, file);
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA " + SCHEMA + ".synchronous = FULL");
+            }
+            dbManager.inTransaction(c -> {
+                SchemaMigrations.createOrderTables(c, SCHEMA);
+                copyOrders(c, from, to);
+                return null;
+            });
+            int moved = dbManager.inTransaction(c -> {
+                register(c, month, file, from, to);
+                return deleteOrders(c, from, to);
+            });
+            System.out.println("📦 Archived " + moved + " orders of " + month + " to " + file.getName());
+            return moved;
+        } finally {
+            detach(connection);
+        }
+    }
+
+    private void copyOrders(Connection connection, long from, long to) throws SQLException {
+        String ordersSql = """
+            INSERT OR IGNORE INTO archive.orders
+                (id, timestamp, created_at, status, payment_method, payment_amount, total, tax, grand_total)
+            SELECT id, timestamp, created_at, status, payment_method, payment_amount, total, tax, grand_total
+            FROM main.orders
+            WHERE created_at >= ? AND created_at < ?
+        """;
+        String itemsSql = """
+            INSERT OR IGNORE INTO archive.order_items
+                (id, order_id, menu_item_id, menu_item_name, quantity, price, subtotal)
+            SELECT oi.id, oi.order_id, oi.menu_item_id, oi.menu_item_name, oi.quantity, oi.price, oi.subtotal
+            FROM main.orders o
+            JOIN main.order_items oi ON oi.order_id = o.id
+            WHERE o.created_at >= ? AND o.created_at < ?
+        """;
+        for (String sql : new String[] { ordersSql, itemsSql }) {
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setLong(1, from);
+                pstmt.setLong(2, to);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    // Totals are taken from the whole archive file, so archiving the same month
+    // again (late orders, or a rerun after a crash) leaves them correct
+    private void register(Connection connection, YearMonth month, File file, long from, long to)
+            throws SQLException {
+        String totalsSql = """
+            INSERT OR REPLACE INTO main.order_archives
+                (month, file, from_time, to_time, order_count, total_sales, total_tax, first_order_id, last_order_id)
+            SELECT ?, ?, ?, ?, COUNT(*), COALESCE(SUM(grand_total), 0), COALESCE(SUM(tax), 0), MIN(id), MAX(id)
+            FROM archive.orders
+            WHERE status = 'Completed'
+        """;
+        String itemsSql = """
+            INSERT INTO main.archived_item_sales (month, menu_item_id, menu_item_name, quantity)
+            SELECT ?, oi.menu_item_id, MAX(oi.menu_item_name), SUM(oi.quantity)
+            FROM archive.order_items oi
+            JOIN archive.orders o ON o.id = oi.order_id
+            WHERE o.status = 'Completed'
+            GROUP BY oi.menu_item_id
+        """;
+
+        try (PreparedStatement totals = connection.prepareStatement(totalsSql);
+             PreparedStatement clear = connection.prepareStatement(
+                     "DELETE FROM main.archived_item_sales WHERE month = ?");
+             PreparedStatement items = connection.prepareStatement(itemsSql)) {
+            totals.setString(1, month.toString());
+            totals.setString(2, file.getName());
+            totals.setLong(3, from);
+            totals.setLong(4, to);
+            totals.executeUpdate();
+            clear.setString(1, month.toString());
+            clear.executeUpdate();
+            items.setString(1, month.toString());
+            items.executeUpdate();
+        }
+    }
+
+    private int deleteOrders(Connection connection, long from, long to) throws SQLException {
+        String itemsSql = """
+            DELETE FROM main.order_items
+            WHERE order_id IN (SELECT id FROM main.orders WHERE created_at >= ? AND created_at < ?)
+        """;
+        String ordersSql = "DELETE FROM main.orders WHERE created_at >= ? AND created_at < ?";
+
+        try (PreparedStatement items = connection.prepareStatement(itemsSql);
+             PreparedStatement orders = connection.prepareStatement(ordersSql)) {
+            items.setLong(1, from);
+            items.setLong(2, to);
+            items.executeUpdate();
+            orders.setLong(1, from);
+            orders.setLong(2, to);
+            return orders.executeUpdate();
+        }
+    }
+
+    // Archived months, oldest first
+    public ArrayList<ArchivedMonth> getArchives() throws SQLException {
+        ArrayList<ArchivedMonth> archives = new ArrayList<>();
+        String sql = """
+            SELECT month, file, from_time, to_time, order_count, total_sales, total_tax,
+                   first_order_id, last_order_id
+            FROM order_archives
+            ORDER BY from_time
+        """;
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                archives.add(new ArchivedMonth(rs.getString(1), new File(directory, rs.getString(2)),
+                        rs.getLong(3), rs.getLong(4), rs.getInt(5), rs.getLong(6), rs.getLong(7),
+                        rs.getInt(8), rs.getInt(9)));
+            }
+        }
+        return archives;
+    }
+
+    // Run a read with the month's file attached as "archive" on this thread's connection
+    public <T> T read(ArchivedMonth archive, DatabaseManager.SqlWork<T> work) throws SQLException {
+        if (!archive.getFile().isFile()) {
+            // ATTACH would silently create an empty database in its place
+            throw new SQLException("Archive file missing: " + archive.getFile());
+        }
+        Connection connection = dbManager.getConnection();
+        attach(connection, archive.getFile());
+        try {
+            return work.run(connection);
+        } finally {
+            detach(connection);
+        }
+    }
+
+    private void attach(Connection connection, File file) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("ATTACH DATABASE ? AS " + SCHEMA)) {
+            pstmt.setString(1, file.getPath());
+            pstmt.execute();
+        }
+    }
+
+    private void detach(Connection connection) {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DETACH DATABASE " + SCHEMA);
+        } catch (SQLException e) {
+            Metrics.counter("db.errors").increment();
+            System.err.println("❌ Error detaching archive: " + e.getMessage());
+        }
+    }
+
+    private File fileFor(YearMonth month) {
+        return new File(directory, baseName + "-" + month + ".db");
+    }
+
+    private long startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,99 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+
+// Table model for the order history that only holds the pages the user has
+// scrolled to. Older orders stay in the database until they are asked for.
+class OrderHistoryTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = { "Order #", "Items", "Payment", "Grand Total" };
+    private static final int PAGE_SIZE = 50;
+
+    private final DatabaseManager dbManager;
+    private final PersistenceExecutor persistence;
+    private final ArrayList<MenuItem> menu;
+    private final ArrayList<Order> orders = new ArrayList<>();
+    private boolean hasMore = true;
+    private boolean loading;
+    private int generation; // Bumped by reset so pages requested before it are dropped
+
+    public OrderHistoryTableModel(DatabaseManager dbManager, PersistenceExecutor persistence, ArrayList<MenuItem> menu) {
+        this.dbManager = dbManager;
+        this.persistence = persistence;
+        this.menu = menu;
+    }
+
+    // Fetch the next (older) page in the background; keyset is the oldest order id already shown
+    public void loadNextPage() {
+        if (!hasMore || loading) {
+            return;
+        }
+        loading = true;
+        int requestedBy = generation;
+        int beforeId = orders.isEmpty() ? Integer.MAX_VALUE : orders.get(orders.size() - 1).getOrderId();
+        // The menu is the live list a catalog import changes on the EDT; db-io reads a copy
+        ArrayList<MenuItem> menuSnapshot = new ArrayList<>(menu);
+        persistence.submit(() -> dbManager.loadCompletedOrdersPage(menuSnapshot, beforeId, PAGE_SIZE),
+                page -> {
+                    if (requestedBy != generation) {
+                        return;
+                    }
+                    loading = false;
+                    hasMore = page.size() == PAGE_SIZE;
+                    if (!page.isEmpty()) {
+                        int first = orders.size();
+                        orders.addAll(page);
+                        fireTableRowsInserted(first, orders.size() - 1);
+                    }
+                },
+                e -> loading = false);
+    }
+
+    // Drop everything loaded so far and start again from the newest order
+    public void reset() {
+        generation++;
+        orders.clear();
+        hasMore = true;
+        loading = false;
+        fireTableDataChanged();
+        loadNextPage();
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public int getRowCount() {
+        return orders.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Order order = orders.get(row);
+        switch (column) {
+            case 0:
+                return String.format("#%04d", order.getOrderId());
+            case 1:
+                int quantity = 0;
+                for (Order.OrderItem item : order.getItems()) {
+                    quantity += item.getQuantity();
+                }
+                return quantity;
+            case 2:
+                return order.getPaymentMethod();
+            case 3:
+                return Money.format(order.getGrandTotal());
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,591 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Append-only log of checkouts and restocks, written through a memory-mapped
+// file. A checkout is safe once its record is appended: one sequential write
+// into the mapping, no SQLite call. The SQLite tables are a projection of the
+// journal that the persistence writer brings up to date in the background, so
+// the journal also hands out order ids. journal_state in the database records
+// the last event projected, in the same transaction as the projection, and
+// open() replays exactly the events that had not reached SQLite before a crash.
+// Replaying the journal onto a backup of the database brings it up to date
+// (see main).
+//
+// The records live in segment files next to the journal file, which itself is
+// only locked: cektipis.journal.1, cektipis.journal.40213, ..., each named after
+// the sequence of its first event and at most SEGMENT_BYTES long. When the
+// segment being written is full, appends move on to a new one. Segments are
+// never deleted, projected or not: the journal is what rebuilds the database
+// from scratch, so it holds every event since the first. A journal from before
+// segments has its records in the journal file; it is read as the oldest segment.
+//
+// Record: length(int) crc32(int) sequence(long) payload; the CRC covers the
+// sequence and payload. A zero length marks the end. A record whose CRC does
+// not match is a write torn by a crash, and appending resumes in its place.
+// As with the database's synchronous=NORMAL, an appended record survives the
+// app crashing; it is forced to the disk itself on close.
+class OrderJournal {
+    static final byte CHECKOUT = 1;
+    static final byte RESTOCK = 2;
+    static final byte CATALOG = 3;
+
+    private static final int HEADER = 16;
+    private static final int MAX_RECORD = 1 << 20;
+    private static final int SEGMENT_BYTES = 8 << 20; // Mapped whole while it is written
+    private static final int REPLAY_GROUP = 500;
+
+    private final File file;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private Segment current;
+    private FileChannel channel; // Of the current segment
+    private MappedByteBuffer window;
+    private int position; // Where the next record goes in the current segment
+    private long nextSequence;
+    private int nextOrderId;
+
+    // One file of records. The legacy segment is the journal file itself.
+    private static class Segment {
+        private final File file;
+        private final long firstSequence;
+        private final boolean legacy;
+
+        Segment(File file, long firstSequence, boolean legacy) {
+            this.file = file;
+            this.firstSequence = firstSequence;
+            this.legacy = legacy;
+        }
+    }
+
+    // One journaled change. A restock is one line: the menu item and quantity
+    // added. A catalog event has no lines, only the imported rows.
+    static class Event {
+        private long sequence;
+        private long endOffset;
+        private final byte type;
+        private int orderId;
+        private long createdAt;
+        private String paymentMethod;
+        private long paymentAmount;
+        private long total;
+        private long tax;
+        private long grandTotal;
+        private final int[] menuItemIds;
+        private final String[] names;
+        private final int[] quantities;
+        private final long[] prices;
+        private List<MenuCatalogImporter.CatalogRow> catalogRows;
+
+        private Event(byte type, int lines) {
+            this.type = type;
+            this.menuItemIds = new int[lines];
+            this.names = new String[lines];
+            this.quantities = new int[lines];
+            this.prices = new long[lines];
+        }
+
+        static Event checkout(Order order) {
+            List<Order.OrderItem> items = order.getItems();
+            Event event = new Event(CHECKOUT, items.size());
+            event.createdAt = order.getTimestamp().getTime();
+            event.paymentMethod = order.getPaymentMethod();
+            event.paymentAmount = order.getPaymentAmount();
+            event.total = order.getTotal();
+            event.tax = order.getTax();
+            event.grandTotal = order.getGrandTotal();
+            for (int i = 0; i < items.size(); i++) {
+                Order.OrderItem item = items.get(i);
+                event.menuItemIds[i] = item.getMenuItem().getId();
+                event.names[i] = item.getMenuItem().getName();
+                event.quantities[i] = item.getQuantity();
+                event.prices[i] = item.getMenuItem().getPrice();
+            }
+            return event;
+        }
+
+        static Event restock(int menuItemId, int quantity) {
+            Event event = new Event(RESTOCK, 1);
+            event.menuItemIds[0] = menuItemId;
+            event.quantities[0] = quantity;
+            return event;
+        }
+
+        static Event catalog(List<MenuCatalogImporter.CatalogRow> rows) {
+            Event event = new Event(CATALOG, 0);
+            event.catalogRows = new ArrayList<>(rows);
+            return event;
+        }
+
+        public long getSequence() { return sequence; }
+        // Offset in its segment just past this record, where replay continues
+        public long getEndOffset() { return endOffset; }
+        public byte getType() { return type; }
+        public int getOrderId() { return orderId; }
+        public long getCreatedAt() { return createdAt; }
+        public String getPaymentMethod() { return paymentMethod; }
+        public long getPaymentAmount() { return paymentAmount; }
+        public long getTotal() { return total; }
+        public long getTax() { return tax; }
+        public long getGrandTotal() { return grandTotal; }
+        public int getLineCount() { return menuItemIds.length; }
+        public int getMenuItemId(int line) { return menuItemIds[line]; }
+        public String getName(int line) { return names[line]; }
+        public int getQuantity(int line) { return quantities[line]; }
+        public long getPrice(int line) { return prices[line]; }
+        public long getSubtotal(int line) { return prices[line] * quantities[line]; }
+        public List<MenuCatalogImporter.CatalogRow> getCatalogRows() { return catalogRows; }
+    }
+
+    private OrderJournal(File file, FileChannel lockChannel, FileLock lock) {
+        this.file = file;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+    }
+
+    // Open the journal next to the database, find where it ends and project every
+    // event the database has not seen yet. Only one process may have it open.
+    public static OrderJournal open(DatabaseManager dbManager, File file) throws IOException, SQLException {
+        long start = System.nanoTime();
+        FileChannel lockChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Journal " + file + " is in use by another process");
+        }
+        OrderJournal journal = new OrderJournal(file, lockChannel, lock);
+        try {
+            journal.recover(dbManager);
+        } catch (IOException | SQLException e) {
+            journal.close();
+            throw e;
+        } finally {
+            Metrics.timer("journal.open").stop(start);
+        }
+        return journal;
+    }
+
+    private void recover(DatabaseManager dbManager) throws IOException, SQLException {
+        long[] state = dbManager.loadJournalState();
+        long applied = state[0];
+        ArrayList<Segment> segments = findSegments();
+
+        long expected = applied + 1; // Next event the database needs
+        long lastSequence = applied;
+        int lastOrderId = 0;
+        int replayed = 0;
+        long end = 0;
+        ArrayList<Event> group = new ArrayList<>(REPLAY_GROUP);
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            if (!last && segments.get(i + 1).firstSequence <= expected) {
+                continue; // Projected up to where the next segment starts
+            }
+
+            FileChannel in = segment.legacy ? lockChannel
+                    : FileChannel.open(segment.file.toPath(), StandardOpenOption.READ);
+            try {
+                // Resume at the stored offset if the record there is the next one
+                // the database needs; otherwise read the segment from its start
+                long offset = 0;
+                Event first = state[1] < in.size() ? readAt(in, state[1]) : null;
+                if (first != null && first.sequence == expected) {
+                    offset = state[1];
+                }
+                Event event;
+                while ((event = readAt(in, offset)) != null) {
+                    offset = event.endOffset;
+                    lastSequence = Math.max(lastSequence, event.sequence);
+                    lastOrderId = Math.max(lastOrderId, event.orderId);
+                    if (event.sequence < expected) {
+                        continue;
+                    }
+                    if (event.sequence > expected) {
+                        throw new IOException("Journal " + file + " is missing events " + expected + " to "
+                                + (event.sequence - 1) + " that the database does not have; restore a"
+                                + " database backup taken after event " + (expected - 1));
+                    }
+                    expected++;
+                    group.add(event);
+                    if (group.size() == REPLAY_GROUP) {
+                        replayed += replay(dbManager, group);
+                        group.clear();
+                    }
+                }
+                end = offset;
+            } finally {
+                if (!segment.legacy) {
+                    in.close();
+                }
+            }
+            if (last && !segment.legacy) {
+                current = segment;
+            }
+        }
+        if (!group.isEmpty()) {
+            replayed += replay(dbManager, group);
+        }
+        if (replayed > 0) {
+            System.out.println("📝 Replayed " + replayed + " journal events into the database");
+        }
+
+        nextSequence = lastSequence + 1;
+        nextOrderId = Math.max(lastOrderId, dbManager.maxOrderId()) + 1;
+        if (current != null) {
+            openCurrent((int) end);
+        } else {
+            startSegment(nextSequence);
+        }
+    }
+
+    // Project a group of events. The tables cannot skip an event, so one that
+    // fails stops the app from starting until its cause is fixed; it and every
+    // event after it stay in the journal for the next start.
+    private static int replay(DatabaseManager dbManager, List<Event> group) throws SQLException {
+        int applied = dbManager.applyJournal(group);
+        if (applied < group.size()) {
+            throw new SQLException("Journal event " + group.get(applied).sequence
+                    + " could not be applied to the database; it is kept in the journal");
+        }
+        return applied;
+    }
+
+    // The legacy records in the journal file, if any, then the segment files
+    private ArrayList<Segment> findSegments() throws IOException {
+        ArrayList<Segment> segments = new ArrayList<>();
+        Event first = readAt(lockChannel, 0);
+        if (first != null) {
+            segments.add(new Segment(file, first.sequence, true));
+        }
+        String prefix = file.getName() + ".";
+        for (File segmentFile : segmentFiles(file)) {
+            long firstSequence = Long.parseLong(segmentFile.getName().substring(prefix.length()));
+            segments.add(new Segment(segmentFile, firstSequence, false));
+        }
+        return segments;
+    }
+
+    // Segment files of a journal, oldest first
+    static ArrayList<File> segmentFiles(File file) {
+        String prefix = file.getName() + ".";
+        File[] found = file.getAbsoluteFile().getParentFile().listFiles(
+                (dir, name) -> name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d{1,18}"));
+        ArrayList<File> files = new ArrayList<>(found == null ? List.of() : List.of(found));
+        files.sort(Comparator.comparingLong(f -> Long.parseLong(f.getName().substring(prefix.length()))));
+        return files;
+    }
+
+    // Continue writing the last segment at the end of its records
+    private void openCurrent(int end) throws IOException {
+        channel = FileChannel.open(current.file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        window = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        position = end;
+        window.position(position);
+        int tornLength = window.getInt(position);
+        if (tornLength != 0) {
+            // Clear what a torn write left behind, so the end reads as the end
+            System.out.println("⚠️ Discarding a torn journal record at offset " + position + " of " + current.file);
+            int length = Math.min(HEADER + Math.min(Math.max(tornLength, 0), MAX_RECORD), SEGMENT_BYTES - position);
+            for (int i = 0; i < length; i++) {
+                window.put(position + i, (byte) 0);
+            }
+        }
+    }
+
+    // Move appends to a new segment whose first event will have this sequence
+    private void startSegment(long firstSequence) throws IOException {
+        if (current != null) {
+            channel.close(); // The mapping stays valid until it is collected
+        }
+        current = new Segment(new File(file.getPath() + "." + firstSequence), firstSequence, false);
+        channel = FileChannel.open(current.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        window = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        position = 0;
+    }
+
+    // Record at the offset, or null at the end of the segment or at a torn write
+    private Event readAt(FileChannel in, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        if (readFully(in, header, offset) < HEADER) {
+            return null;
+        }
+        int length = header.getInt(0);
+        int checksum = header.getInt(4);
+        long sequence = header.getLong(8);
+        if (length <= 0 || length > MAX_RECORD) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (readFully(in, payload, offset + HEADER) < length) {
+            return null;
+        }
+        crc.reset();
+        crc.update(header.array(), 8, 8);
+        crc.update(payload.array(), 0, length);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+
+        payload.flip();
+        Event event = decode(payload);
+        event.sequence = sequence;
+        event.endOffset = offset + HEADER + length;
+        return event;
+    }
+
+    private static int readFully(FileChannel in, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    // Append an event, giving it the next sequence number and, for a checkout,
+    // the next order id. The event is returned ready to be projected.
+    public synchronized Event append(Event event) throws IOException {
+        long start = System.nanoTime();
+        try {
+            event.sequence = nextSequence;
+            if (event.type == CHECKOUT) {
+                event.orderId = nextOrderId;
+            }
+            // The sequence number and payload are laid out together, as in the file,
+            // so one CRC pass covers both
+            scratch.clear();
+            scratch.putLong(event.sequence);
+            encode(event);
+            int length = scratch.position() - 8;
+            if (length > MAX_RECORD) {
+                throw new IOException("Journal record of " + length + " bytes is too large");
+            }
+            // Room is left for the zero length that marks the end
+            if (SEGMENT_BYTES - position < HEADER + length + 4) {
+                startSegment(event.sequence);
+            }
+
+            crc.reset();
+            crc.update(scratch.array(), 0, scratch.position());
+            window.putInt(length);
+            window.putInt((int) crc.getValue());
+            window.put(scratch.array(), 0, scratch.position());
+
+            position += HEADER + length;
+            event.endOffset = position;
+            nextSequence++;
+            if (event.type == CHECKOUT) {
+                nextOrderId++;
+            }
+            return event;
+        } finally {
+            Metrics.timer("journal.append").stop(start);
+        }
+    }
+
+    private void encode(Event event) {
+        put(event.type);
+        if (event.type == RESTOCK) {
+            ensureCapacity(8);
+            scratch.putInt(event.menuItemIds[0]);
+            scratch.putInt(event.quantities[0]);
+            return;
+        }
+        if (event.type == CATALOG) {
+            ensureCapacity(4);
+            scratch.putInt(event.catalogRows.size());
+            for (MenuCatalogImporter.CatalogRow row : event.catalogRows) {
+                putString(row.getSku());
+                putString(row.getName());
+                ensureCapacity(12);
+                scratch.putLong(row.getPrice());
+                scratch.putInt(orKeep(row.getStock()));
+                putString(row.getCategory());
+                ensureCapacity(12);
+                scratch.putInt(orKeep(row.getSpicyLevel()));
+                scratch.putInt(orKeep(row.getIsHot()));
+                scratch.putInt(orKeep(row.getHasIceCream()));
+            }
+            return;
+        }
+        ensureCapacity(12);
+        scratch.putInt(event.orderId);
+        scratch.putLong(event.createdAt);
+        putString(event.paymentMethod);
+        ensureCapacity(36);
+        scratch.putLong(event.paymentAmount);
+        scratch.putLong(event.total);
+        scratch.putLong(event.tax);
+        scratch.putLong(event.grandTotal);
+        scratch.putInt(event.menuItemIds.length);
+        for (int i = 0; i < event.menuItemIds.length; i++) {
+            ensureCapacity(4);
+            scratch.putInt(event.menuItemIds[i]);
+            putString(event.names[i]);
+            ensureCapacity(12);
+            scratch.putInt(event.quantities[i]);
+            scratch.putLong(event.prices[i]);
+        }
+    }
+
+    private static Event decode(ByteBuffer payload) {
+        byte type = payload.get();
+        if (type == RESTOCK) {
+            Event event = new Event(RESTOCK, 1);
+            event.menuItemIds[0] = payload.getInt();
+            event.quantities[0] = payload.getInt();
+            return event;
+        }
+        if (type == CATALOG) {
+            int count = payload.getInt();
+            List<MenuCatalogImporter.CatalogRow> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String sku = getString(payload);
+                String name = getString(payload);
+                long price = payload.getLong();
+                Integer stock = kept(payload.getInt());
+                String category = getString(payload);
+                Integer spicyLevel = kept(payload.getInt());
+                Integer isHot = kept(payload.getInt());
+                Integer hasIceCream = kept(payload.getInt());
+                rows.add(new MenuCatalogImporter.CatalogRow(sku, name, price, stock, category,
+                        spicyLevel, isHot, hasIceCream));
+            }
+            Event event = new Event(CATALOG, 0);
+            event.catalogRows = rows;
+            return event;
+        }
+        int orderId = payload.getInt();
+        long createdAt = payload.getLong();
+        String paymentMethod = getString(payload);
+        long paymentAmount = payload.getLong();
+        long total = payload.getLong();
+        long tax = payload.getLong();
+        long grandTotal = payload.getLong();
+        Event event = new Event(CHECKOUT, payload.getInt());
+        event.orderId = orderId;
+        event.createdAt = createdAt;
+        event.paymentMethod = paymentMethod;
+        event.paymentAmount = paymentAmount;
+        event.total = total;
+        event.tax = tax;
+        event.grandTotal = grandTotal;
+        for (int i = 0; i < event.menuItemIds.length; i++) {
+            event.menuItemIds[i] = payload.getInt();
+            event.names[i] = getString(payload);
+            event.quantities[i] = payload.getInt();
+            event.prices[i] = payload.getLong();
+        }
+        return event;
+    }
+
+    // Length-prefixed UTF-8; length -1 is null
+    private void putString(String s) {
+        if (s == null) {
+            ensureCapacity(4);
+            scratch.putInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(4 + bytes.length);
+        scratch.putInt(bytes.length);
+        scratch.put(bytes);
+    }
+
+    // Catalog values are never negative, so -1 stands for "keep the stored value"
+    private static int orKeep(Integer value) {
+        return value == null ? -1 : value;
+    }
+
+    private static Integer kept(int value) {
+        return value < 0 ? null : value;
+    }
+
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void put(byte b) {
+        ensureCapacity(1);
+        scratch.put(b);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (scratch.remaining() < extra) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + extra));
+            scratch.flip();
+            bigger.put(scratch);
+            scratch = bigger;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Sequence of the last event appended, 0 while the journal is empty
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    // Force the appended records to disk and release the files
+    public synchronized void close() {
+        try {
+            if (window != null) {
+                window.force();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            System.err.println("❌ Error closing journal: " + e.getMessage());
+        }
+    }
+
+    // Bring a database up to date from a journal, e.g. after cektipis.db was
+    // lost: restore the last backup, then
+    //   java -Dcektipis.db=restored.db OrderJournal cektipis.journal
+    // Events the database already has are skipped, and the journal holds every
+    // event from the first, so a new file can be rebuilt from it too. Menu items
+    // are seeded as on first start before the journal is replayed, as the app
+    // does, so restocks and catalog changes apply to them. If the app is still
+    // running, copy the journal file and its segments first, it holds the lock;
+    // the copy is left as it is.
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: java -Dcektipis.db=<database> OrderJournal <journal>");
+            System.exit(2);
+        }
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        dbManager.initializeDatabase();
+        dbManager.seedMenuItems();
+        OrderJournal journal = open(dbManager, new File(args[0]));
+        journal.close();
+        System.out.println("✅ " + dbManager.countCompletedOrders() + " orders after replaying " + args[0]);
+        dbManager.close();
+    }
+}
@@ -0,0 +1,602 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Brings the orders of several outlets together in one central database. Each
+// outlet numbers its orders itself, so the same ids exist at every outlet.
+//
+// On an outlet, export() ships the orders added since its last run, from the
+// archive files as well as the database, as GZIP-compressed batch files of at
+// most BATCH_ORDERS orders named <outlet>-<batch number>.batch.gz. Orders never
+// change once written, so the highest order id shipped is the watermark. It
+// only moves after every batch file of a run is on disk; a run that fails
+// halfway ships the same orders again next time.
+//
+// On the central database, a cektipis database of its own that no till runs
+// on, merge() applies the batch files, each in one transaction. Merged orders
+// get new ids there, and outlet_orders maps (outlet, outlet order id) to them.
+// It is written with INSERT OR IGNORE, so an order that arrives twice is
+// stored once, and batches in outlet_batches are skipped. Menu item ids are
+// the outlet's own too, so each line's item is mapped to a central menu item:
+// see MenuItemMap.
+//
+// Batch file, inside the GZIP stream (DataOutputStream encoding):
+//   "CKSB" version(int) outlet(UTF) batchSequence(long)
+//   {ORDER id timestamp createdAt status paymentMethod paymentAmount total tax grandTotal
+//    {ITEM menuItemId sku category name quantity price subtotal}...}... END orderCount(int)
+// Text and numbers that can be NULL are a boolean, then the value if it is
+// true. Version 1 files, without sku and category and with every number
+// present, are still merged.
+class OutletSync {
+    private static final int MAGIC = 0x434B5342; // "CKSB"
+    private static final int VERSION = 2;
+    private static final byte ORDER = 1;
+    private static final byte ITEM = 2;
+    private static final byte END = 0;
+
+    private static final int BATCH_ORDERS = 50_000;
+    private static final int INSERT_BATCH = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String SUFFIX = ".batch.gz";
+    private static final String OUTLET_PATTERN = "[A-Za-z0-9_-]{1,32}"; // Also part of file names
+
+    // Each order followed by its lines, in id order. Both tables are read along
+    // their rowid and the order_items(order_id) index, so nothing is sorted; the
+    // menu item of a line is looked up by id in the main database, also for an
+    // archive.
+    private static final String EXPORT_SQL = """
+        SELECT o.id, o.timestamp, o.created_at, o.status, o.payment_method, o.payment_amount,
+               o.total, o.tax, o.grand_total,
+               oi.menu_item_id, oi.menu_item_name, oi.quantity, oi.price, oi.subtotal,
+               mi.sku, mi.category
+        FROM %1$s.orders o
+        LEFT JOIN %1$s.order_items oi ON oi.order_id = o.id
+        LEFT JOIN main.menu_items mi ON mi.id = oi.menu_item_id
+        WHERE o.id > ?
+        ORDER BY o.id, oi.id
+    """;
+
+    private final DatabaseManager dbManager;
+
+    // sync_state of an outlet
+    private static class SyncState {
+        private final String outlet;
+        private final long exportedOrderId;
+        private final long batchSequence;
+
+        SyncState(String outlet, long exportedOrderId, long batchSequence) {
+            this.outlet = outlet;
+            this.exportedOrderId = exportedOrderId;
+            this.batchSequence = batchSequence;
+        }
+    }
+
+    public OutletSync(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    // Write the orders added since the last export to batch files in outbox.
+    // The outlet name is stored on the first export; later ones may leave it
+    // null but not change it. Returns the orders exported, or -1 on failure.
+    public int export(String outlet, Path outbox) {
+        long start = System.nanoTime();
+        BatchWriter writer = null;
+        try {
+            SyncState state = loadSyncState();
+            if (outlet == null) {
+                outlet = state.outlet;
+            }
+            if (outlet == null || !outlet.matches(OUTLET_PATTERN)) {
+                throw new SQLException("Outlet name missing or invalid (letters, digits, - and _): " + outlet);
+            }
+            if (state.outlet != null && !state.outlet.equals(outlet)) {
+                throw new SQLException("This database is outlet " + state.outlet + ", not " + outlet);
+            }
+            Files.createDirectories(outbox);
+
+            BatchWriter batches = new BatchWriter(outlet, outbox, state.batchSequence);
+            writer = batches;
+            long watermark = state.exportedOrderId;
+            OrderArchiver archiver = dbManager.getArchiver();
+            for (OrderArchiver.ArchivedMonth archive : archiver.getArchives()) {
+                if (archive.getLastOrderId() > watermark) {
+                    archiver.read(archive, connection -> {
+                        try {
+                            stream(connection, EXPORT_SQL.formatted(OrderArchiver.SCHEMA), watermark, batches);
+                        } catch (IOException e) {
+                            // SqlWork only throws SQLException; the message still names the write failure
+                            throw new SQLException("Writing batch failed: " + e.getMessage(), e);
+                        }
+                        return null;
+                    });
+                }
+            }
+            stream(dbManager.getConnection(), EXPORT_SQL.formatted("main"), watermark, batches);
+            batches.finish();
+            if (batches.lastOrderId > watermark) {
+                saveWatermark(batches.lastOrderId);
+            }
+
+            Metrics.counter("sync.exportedOrders").add(batches.orders);
+            System.out.println("✅ Exported " + batches.orders + " orders in " + batches.files + " batches to " + outbox);
+            return batches.orders;
+        } catch (IOException | SQLException e) {
+            Metrics.counter("sync.errors").increment();
+            System.err.println("❌ Error exporting orders: " + e.getMessage());
+            if (writer != null) {
+                writer.abort();
+            }
+            return -1;
+        } finally {
+            Metrics.timer("sync.export").stop(start);
+        }
+    }
+
+    private void stream(Connection connection, String sql, long afterOrderId, BatchWriter writer)
+            throws SQLException, IOException {
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, afterOrderId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                long currentOrderId = -1;
+                while (rs.next()) {
+                    long orderId = rs.getLong(1);
+                    if (orderId != currentOrderId) {
+                        writer.order(rs);
+                        currentOrderId = orderId;
+                    }
+                    rs.getInt(10);
+                    if (!rs.wasNull()) {
+                        writer.item(rs); // No lines: the LEFT JOIN gives one row of NULLs
+                    }
+                }
+            }
+        }
+    }
+
+    // Merge every batch file in inbox into this database, in file name order,
+    // so each outlet's batches go in the order they were written. Returns the
+    // orders that were new, or -1 on failure; batches merged before it stopped
+    // stay merged.
+    public int merge(Path inbox) {
+        long start = System.nanoTime();
+        int merged = 0;
+        try {
+            checkCentral();
+            ArrayList<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> dir = Files.newDirectoryStream(inbox, "*" + SUFFIX)) {
+                for (Path file : dir) {
+                    files.add(file);
+                }
+            }
+            Collections.sort(files);
+
+            for (Path file : files) {
+                merged += dbManager.inTransaction(connection -> {
+                    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                            new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE))) {
+                        return mergeBatch(connection, in, file);
+                    } catch (IOException e) {
+                        // A truncated file ends the GZIP stream early; the batch is rolled back
+                        throw new SQLException("Reading " + file.getFileName() + " failed: " + e, e);
+                    }
+                });
+            }
+
+            Metrics.counter("sync.mergedOrders").add(merged);
+            System.out.println("✅ Merged " + merged + " new orders from " + files.size() + " batch files");
+            return merged;
+        } catch (IOException | SQLException e) {
+            Metrics.counter("sync.errors").increment();
+            System.err.println("❌ Error merging outlet orders: " + e.getMessage());
+            return -1;
+        } finally {
+            Metrics.timer("sync.merge").stop(start);
+        }
+    }
+
+    // Orders of one batch file that were not merged before
+    private int mergeBatch(Connection connection, DataInputStream in, Path file) throws SQLException, IOException {
+        int version = in.readInt() == MAGIC ? in.readInt() : -1;
+        if (version != 1 && version != VERSION) {
+            throw new IOException("not a batch file of this version");
+        }
+        String outlet = in.readUTF();
+        long sequence = in.readLong();
+        if (isMerged(connection, outlet, sequence)) {
+            System.out.println("⏭️ " + file.getFileName() + " was already merged");
+            return 0;
+        }
+
+        // The central database hands out order ids itself, in this transaction
+        int nextOrderId = dbManager.maxOrderId() + 1;
+        int orders = 0;
+        int merged = 0;
+        int pending = 0;
+        boolean isNew = false;
+        try (MenuItemMap menuItems = new MenuItemMap(connection, outlet);
+             PreparedStatement mapping = connection.prepareStatement(
+                     "INSERT OR IGNORE INTO outlet_orders (outlet, outlet_order_id, order_id) VALUES (?, ?, ?)");
+             PreparedStatement order = connection.prepareStatement(
+                     "INSERT INTO orders (id, timestamp, created_at, status, payment_method, payment_amount, total, tax, grand_total) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement items = connection.prepareStatement(
+                     "INSERT INTO order_items (order_id, menu_item_id, menu_item_name, quantity, price, subtotal) VALUES (?, ?, ?, ?, ?, ?)")) {
+            mapping.setString(1, outlet);
+            for (byte tag = in.readByte(); tag != END; tag = in.readByte()) {
+                if (tag == ORDER) {
+                    orders++;
+                    mapping.setLong(2, in.readLong());
+                    mapping.setInt(3, nextOrderId);
+                    isNew = mapping.executeUpdate() == 1;
+                    if (isNew) {
+                        order.setInt(1, nextOrderId);
+                    }
+                    order.setString(2, readText(in));
+                    readNumber(in, version, order, 3);
+                    order.setString(4, readText(in));
+                    order.setString(5, readText(in));
+                    for (int column = 6; column <= 9; column++) {
+                        readNumber(in, version, order, column);
+                    }
+                    if (isNew) {
+                        order.addBatch();
+                        merged++;
+                        pending++;
+                        nextOrderId++;
+                    }
+                } else if (tag == ITEM) {
+                    int outletMenuItemId = in.readInt();
+                    String sku = version == 1 ? null : readText(in);
+                    String category = version == 1 ? null : readText(in);
+                    String name = in.readUTF();
+                    int quantity = in.readInt();
+                    long price = in.readLong();
+                    long subtotal = in.readLong();
+                    if (isNew) {
+                        items.setInt(1, nextOrderId - 1);
+                        items.setInt(2, menuItems.centralId(outletMenuItemId, sku, name, category, price));
+                        items.setString(3, name);
+                        items.setInt(4, quantity);
+                        items.setLong(5, price);
+                        items.setLong(6, subtotal);
+                        items.addBatch();
+                        pending++;
+                    }
+                } else {
+                    throw new IOException("unknown record type " + tag);
+                }
+                if (pending >= INSERT_BATCH) {
+                    order.executeBatch();
+                    items.executeBatch();
+                    pending = 0;
+                }
+            }
+            order.executeBatch();
+            items.executeBatch();
+        }
+        if (in.readInt() != orders) {
+            throw new IOException("order count does not match");
+        }
+
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "INSERT INTO outlet_batches (outlet, batch_sequence, order_count, merged_count, merged_at) VALUES (?, ?, ?, ?, ?)")) {
+            pstmt.setString(1, outlet);
+            pstmt.setLong(2, sequence);
+            pstmt.setInt(3, orders);
+            pstmt.setInt(4, merged);
+            pstmt.setLong(5, System.currentTimeMillis());
+            pstmt.executeUpdate();
+        }
+        System.out.println("📥 " + file.getFileName() + ": " + merged + " of " + orders + " orders new");
+        return merged;
+    }
+
+    private static boolean isMerged(Connection connection, String outlet, long sequence) throws SQLException {
+        String sql = "SELECT 1 FROM outlet_batches WHERE outlet = ? AND batch_sequence = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, outlet);
+            pstmt.setLong(2, sequence);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // Merged orders take ids the till's journal would hand out as well, so a
+    // database that takes orders itself cannot be the central one
+    private void checkCentral() throws SQLException {
+        SyncState state = loadSyncState();
+        if (state.outlet != null || dbManager.loadJournalState()[0] > 0) {
+            throw new SQLException("This database takes orders itself; merge into a separate central database");
+        }
+    }
+
+    private SyncState loadSyncState() throws SQLException {
+        String sql = "SELECT outlet, exported_order_id, batch_sequence FROM sync_state WHERE id = 1";
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? new SyncState(rs.getString(1), rs.getLong(2), rs.getLong(3))
+                    : new SyncState(null, 0, 0);
+        }
+    }
+
+    // Recorded per file, so a batch number is never used twice
+    private void saveBatchSequence(String outlet, long sequence) throws SQLException {
+        String sql = "UPDATE sync_state SET outlet = ?, batch_sequence = ? WHERE id = 1";
+        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
+            pstmt.setString(1, outlet);
+            pstmt.setLong(2, sequence);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private void saveWatermark(long orderId) throws SQLException {
+        String sql = "UPDATE sync_state SET exported_order_id = ? WHERE id = 1";
+        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
+            pstmt.setLong(1, orderId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void readNumber(DataInputStream in, int version, PreparedStatement pstmt, int column)
+            throws SQLException, IOException {
+        if (version == 1 || in.readBoolean()) {
+            pstmt.setLong(column, in.readLong());
+        } else {
+            pstmt.setNull(column, Types.INTEGER);
+        }
+    }
+
+    // Central menu item ids of one outlet's menu items. An item seen for the
+    // first time is matched on its SKU, else on its name among the items without
+    // one, else added; outlet_menu_items keeps the match, so the item stays the
+    // same central item if the outlet renames it later. Items added here have no
+    // stock, since no till runs on the central database.
+    private static class MenuItemMap implements AutoCloseable {
+        private final String outlet;
+        private final HashMap<Integer, Integer> known = new HashMap<>();
+        private final PreparedStatement find;
+        private final PreparedStatement bySku;
+        private final PreparedStatement byName;
+        private final PreparedStatement addItem;
+        private final PreparedStatement lastId;
+        private final PreparedStatement addMapping;
+
+        MenuItemMap(Connection connection, String outlet) throws SQLException {
+            this.outlet = outlet;
+            find = connection.prepareStatement(
+                    "SELECT menu_item_id FROM outlet_menu_items WHERE outlet = ? AND outlet_menu_item_id = ?");
+            bySku = connection.prepareStatement("SELECT id FROM menu_items WHERE sku = ?");
+            byName = connection.prepareStatement(
+                    "SELECT id FROM menu_items WHERE name = ? AND sku IS NULL ORDER BY id LIMIT 1");
+            addItem = connection.prepareStatement(
+                    "INSERT INTO menu_items (name, price, stock, category, sku) VALUES (?, ?, 0, ?, ?)");
+            lastId = connection.prepareStatement("SELECT last_insert_rowid()");
+            addMapping = connection.prepareStatement(
+                    "INSERT INTO outlet_menu_items (outlet, outlet_menu_item_id, menu_item_id) VALUES (?, ?, ?)");
+            find.setString(1, outlet);
+        }
+
+        // The category is the outlet's current one, null if it no longer has the item
+        int centralId(int outletId, String sku, String name, String category, long price) throws SQLException {
+            Integer id = known.get(outletId);
+            if (id != null) {
+                return id;
+            }
+            find.setInt(2, outletId);
+            id = firstId(find);
+            if (id == null) {
+                if (sku != null) {
+                    bySku.setString(1, sku);
+                    id = firstId(bySku);
+                } else {
+                    byName.setString(1, name);
+                    id = firstId(byName);
+                }
+                if (id == null) {
+                    addItem.setString(1, name);
+                    addItem.setLong(2, price);
+                    addItem.setString(3, category != null ? category : "Food");
+                    addItem.setString(4, sku);
+                    addItem.executeUpdate();
+                    id = firstId(lastId);
+                }
+                addMapping.setString(1, outlet);
+                addMapping.setInt(2, outletId);
+                addMapping.setInt(3, id);
+                addMapping.executeUpdate();
+            }
+            known.put(outletId, id);
+            return id;
+        }
+
+        private static Integer firstId(PreparedStatement pstmt) throws SQLException {
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            for (PreparedStatement pstmt : new PreparedStatement[] { find, bySku, byName, addItem, lastId, addMapping }) {
+                pstmt.close();
+            }
+        }
+    }
+
+    // Writes the batch files one after the other, each under a temporary name
+    // until it is complete and on disk
+    private class BatchWriter {
+        private final String outlet;
+        private final Path outbox;
+        private long sequence;
+        private Path partial;
+        private FileOutputStream file;
+        private GZIPOutputStream gzip;
+        private DataOutputStream out;
+        private int ordersInFile;
+        private int orders;
+        private int files;
+        private long lastOrderId;
+
+        BatchWriter(String outlet, Path outbox, long sequence) {
+            this.outlet = outlet;
+            this.outbox = outbox;
+            this.sequence = sequence;
+        }
+
+        void order(ResultSet rs) throws SQLException, IOException {
+            if (out != null && ordersInFile == BATCH_ORDERS) {
+                closeFile();
+            }
+            if (out == null) {
+                openFile();
+            }
+            long orderId = rs.getLong(1);
+            out.writeByte(ORDER);
+            out.writeLong(orderId);
+            writeText(rs.getString(2));
+            writeNumber(rs, 3);
+            writeText(rs.getString(4));
+            writeText(rs.getString(5));
+            for (int column = 6; column <= 9; column++) {
+                writeNumber(rs, column);
+            }
+            ordersInFile++;
+            orders++;
+            lastOrderId = Math.max(lastOrderId, orderId);
+        }
+
+        void item(ResultSet rs) throws SQLException, IOException {
+            out.writeByte(ITEM);
+            out.writeInt(rs.getInt(10));
+            writeText(rs.getString(15));
+            writeText(rs.getString(16));
+            out.writeUTF(rs.getString(11));
+            out.writeInt(rs.getInt(12));
+            out.writeLong(rs.getLong(13));
+            out.writeLong(rs.getLong(14));
+        }
+
+        void finish() throws SQLException, IOException {
+            if (out != null) {
+                closeFile();
+            }
+        }
+
+        // Drop the file being written after a failure; finished ones stay
+        void abort() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Deleted below either way
+            }
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                System.err.println("❌ Error removing " + partial + ": " + e.getMessage());
+            }
+        }
+
+        private void writeText(String text) throws IOException {
+            out.writeBoolean(text != null);
+            if (text != null) {
+                out.writeUTF(text);
+            }
+        }
+
+        private void writeNumber(ResultSet rs, int column) throws SQLException, IOException {
+            long value = rs.getLong(column);
+            out.writeBoolean(!rs.wasNull());
+            if (!rs.wasNull()) {
+                out.writeLong(value);
+            }
+        }
+
+        private void openFile() throws IOException {
+            sequence++;
+            partial = outbox.resolve(fileName() + ".part");
+            file = new FileOutputStream(partial.toFile());
+            gzip = new GZIPOutputStream(file, BUFFER_SIZE);
+            out = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(outlet);
+            out.writeLong(sequence);
+        }
+
+        private void closeFile() throws SQLException, IOException {
+            out.writeByte(END);
+            out.writeInt(ordersInFile);
+            out.flush();
+            gzip.finish();
+            file.getChannel().force(true); // The watermark moves past these orders later
+            out.close();
+            out = null;
+
+            Path target = outbox.resolve(fileName());
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            saveBatchSequence(outlet, sequence);
+            System.out.println("📦 " + target.getFileName() + ": " + ordersInFile + " orders");
+            ordersInFile = 0;
+            files++;
+        }
+
+        private String fileName() {
+            return outlet + "-" + String.format("%06d", sequence) + SUFFIX;
+        }
+    }
+
+    // Outlet:  java OutletSync --export [--outlet name] <outbox dir>
+    // Central: java -Dcektipis.db=central.db OutletSync --merge <inbox dir>
+    public static void main(String[] args) {
+        boolean export = args.length >= 2 && "--export".equals(args[0]);
+        boolean merge = args.length == 2 && "--merge".equals(args[0]);
+        String outlet = null;
+        if (export && args.length == 4 && "--outlet".equals(args[1])) {
+            outlet = args[2];
+        } else if (export && args.length != 2) {
+            export = false;
+        }
+        if (!export && !merge) {
+            System.err.println("Usage: OutletSync --export [--outlet name] <outbox dir>");
+            System.err.println("       OutletSync --merge <inbox dir>");
+            System.exit(2);
+        }
+
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        dbManager.initializeDatabase();
+        OutletSync sync = new OutletSync(dbManager);
+        Path dir = Paths.get(args[args.length - 1]);
+        int orders = export ? sync.export(outlet, dir) : sync.merge(dir);
+        dbManager.close();
+        if (orders < 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -1,52 +1,101 @@
 import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.*;
 
 public class POSRestaurant extends JFrame {
     private ArrayList<MenuItem> menu;
     private Order currentOrder;
-    private ArrayList<Order> completedOrders;
+    private SalesAggregates salesAggregates;
     private DatabaseManager dbManager;
+    private PersistenceExecutor persistence;
+    // While a catalog import runs, nothing else is journaled; see importCatalog
+    private boolean importing;
+    private static final int BEST_SELLER_COUNT = 5;
 
     // GUI Components
     private JTabbedPane tabbedPane;
-    private DefaultTableModel cartTableModel;
+    private CartTableModel cartTableModel;
     private JTable cartTable;
     private JLabel totalLabel, taxLabel, grandTotalLabel;
     private JTextField paymentField;
     private JComboBox<String> paymentMethodCombo;
-    private DefaultListModel<MenuItem> menuListModel;
-
-    public POSRestaurant() {
+    private MenuListModel menuListModel;
+    private JList<MenuItem> menuList;
+    private MenuIndex menuIndex;
+    private JTextField menuSearchField;
+    private JComboBox<String> menuCategoryCombo;
+    private javax.swing.Timer cartIdleTimer;
+    private javax.swing.Timer snapshotTimer;
+    private StateSnapshot snapshot;
+    private OrderJournal journal;
+
+    // Unpaid carts give their reserved stock back after this long without changes
+    private static final long CART_IDLE_TIMEOUT_MS = 10 * 60 * 1000;
+    private static final int MENU_SEARCH_LIMIT = 500;
+    private static final String ALL_CATEGORIES = "All Categories";
+    // This month and last month stay in cektipis.db; older ones move to archive/
+    private static final int HOT_MONTHS = 2;
+    private static final int SNAPSHOT_INTERVAL_MS = 5 * 60 * 1000;
+
+    public POSRestaurant(DatabaseManager dbManager, OrderJournal journal, StateSnapshot snapshot,
+            ArrayList<MenuItem> menu, SalesAggregates salesAggregates) {
         setTitle("🍽️ Warung Padang POS System");
         setSize(1200, 700);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
-        // Initialize database
-        dbManager = DatabaseManager.getInstance();
-        dbManager.initializeDatabase();
-        dbManager.seedMenuItems();
-
-        // Initialize data from database
-        menu = dbManager.loadMenuItems();
+        // Data was loaded from the database before the window was created
+        this.dbManager = dbManager;
+        this.journal = journal;
+        this.snapshot = snapshot;
+        this.menu = menu;
+        this.menuIndex = new MenuIndex(menu);
+        this.salesAggregates = salesAggregates;
         currentOrder = new Order();
-        completedOrders = dbManager.loadCompletedOrders(menu);
+
+        // All further database work runs in the background; results come back on the EDT
+        persistence = new PersistenceExecutor(dbManager, journal, SwingUtilities::invokeLater);
 
         // Create GUI
         createGUI();
 
+        // Release stock held by a cart that was left without paying
+        cartIdleTimer = new javax.swing.Timer(30 * 1000, e -> releaseIdleCart());
+        cartIdleTimer.start();
+
+        // Keep the startup snapshot recent in case the app is not closed cleanly
+        snapshotTimer = new javax.swing.Timer(SNAPSHOT_INTERVAL_MS, e -> saveSnapshotIfCaughtUp());
+        snapshotTimer.start();
+
         // Add shutdown hook to close database
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
+                cartIdleTimer.stop();
+                snapshotTimer.stop();
+                currentOrder.releaseReservations();
+                persistence.shutdown(); // Flush checkouts still queued
+                long[] counters = dbManager.loadChangeCounters();
+                // Only if every journaled event reached the tables; otherwise they are replayed on the next start
+                if (counters != null && counters[0] == journal.getLastSequence()) {
+                    snapshot.save(StateSnapshot.capture(counters, menu, salesAggregates)); // For a fast next start
+                }
+                journal.close();
+                Metrics.stop();
                 dbManager.close();
             }
         });
 
         setVisible(true);
+        // Pages freed by archiving at startup are handed back in the background
+        persistence.submit(dbManager.getArchiver()::reclaimSpace, pages -> {}, error -> {});
     }
 
     // Menu is now loaded from database - this method is no longer needed
@@ -75,19 +124,21 @@ public class POSRestaurant extends JFrame {
         JPanel menuPanel = new JPanel(new BorderLayout());
         menuPanel.setBorder(BorderFactory.createTitledBorder("Menu Items"));
 
-        menuListModel = new DefaultListModel<>();
-        updateMenuList();
+        menuListModel = new MenuListModel(menu);
 
-        JList<MenuItem> menuList = new JList<>(menuListModel);
+        menuList = new JList<>(menuListModel);
+        // Fixed cell size: the list never measures rows, it only paints the visible ones
+        menuList.setFixedCellHeight(24);
+        menuList.setFixedCellWidth(200);
         menuList.setCellRenderer(new DefaultListCellRenderer() {
             @Override
             public Component getListCellRendererComponent(JList<?> list, Object value, int index,
                     boolean isSelected, boolean cellHasFocus) {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                if (value instanceof MenuItem) {
+                if (value instanceof MenuItem && index >= 0) {
                     MenuItem item = (MenuItem) value;
-                    setText(item.getDescription() + " | Stock: " + item.getStock());
-                    if (item.getStock() == 0) {
+                    setText(menuListModel.getDisplayText(index));
+                    if (item.getAvailable() == 0) {
                         setForeground(Color.RED);
                     }
                 }
@@ -98,32 +149,70 @@ public class POSRestaurant extends JFrame {
         JScrollPane menuScroll = new JScrollPane(menuList);
         menuPanel.add(menuScroll, BorderLayout.CENTER);
 
+        // Type-to-search: matches the start of any word in the name, then typos
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 5));
+        menuSearchField = new JTextField();
+        menuSearchField.setToolTipText("Search menu by name");
+        menuSearchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                timedFilterMenu();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                timedFilterMenu();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                timedFilterMenu();
+            }
+        });
+        menuSearchField.addActionListener(Metrics.timed("searchAddTopMatch", e -> {
+            // Enter adds the top match
+            if (menuListModel.getSize() > 0) {
+                addToCart(menuListModel.getElementAt(0));
+            }
+        }));
+
+        menuCategoryCombo = new JComboBox<>();
+        menuCategoryCombo.addItem(ALL_CATEGORIES);
+        for (String category : menuIndex.getCategories()) {
+            menuCategoryCombo.addItem(category);
+        }
+        menuCategoryCombo.addActionListener(Metrics.timed("filterMenu", e -> filterMenu()));
+
+        searchPanel.add(new JLabel("🔍"), BorderLayout.WEST);
+        searchPanel.add(menuSearchField, BorderLayout.CENTER);
+        searchPanel.add(menuCategoryCombo, BorderLayout.EAST);
+        menuPanel.add(searchPanel, BorderLayout.NORTH);
+
         JButton addButton = new JButton("Add to Cart");
-        addButton.addActionListener(e -> {
+        addButton.addActionListener(Metrics.timed("addToCart", e -> {
             MenuItem selected = menuList.getSelectedValue();
             if (selected != null) {
                 addToCart(selected);
             }
-        });
+        }));
         menuPanel.add(addButton, BorderLayout.SOUTH);
 
         // Right: Cart & Payment
         JPanel cartPanel = new JPanel(new BorderLayout());
         cartPanel.setBorder(BorderFactory.createTitledBorder("Shopping Cart"));
 
-        // Cart Table
-        String[] columns = { "Item", "Price", "Qty", "Subtotal" };
-        cartTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 2; // Only quantity editable
-            }
-        };
+        // Cart Table - rows come straight from the current order
+        cartTableModel = new CartTableModel(currentOrder, ex ->
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
 
         cartTable = new JTable(cartTableModel);
-        cartTable.getModel().addTableModelListener(e -> {
-            if (e.getColumn() == 2) { // Quantity changed
-                updateCartQuantity(e.getFirstRow());
+        cartTableModel.addTableModelListener(e -> {
+            updateTotals();
+            // A line was added or its quantity changed, so its reserved stock changed
+            int row = e.getFirstRow();
+            if (e.getType() != TableModelEvent.DELETE && row == e.getLastRow()
+                    && row >= 0 && row < currentOrder.getItems().size()) {
+                menuListModel.itemChanged(currentOrder.getItems().get(row).getMenuItem());
             }
         });
 
@@ -133,9 +222,9 @@ public class POSRestaurant extends JFrame {
         // Cart buttons
         JPanel cartButtons = new JPanel(new FlowLayout());
         JButton removeButton = new JButton("Remove");
-        removeButton.addActionListener(e -> removeFromCart());
+        removeButton.addActionListener(Metrics.timed("removeFromCart", e -> removeFromCart()));
         JButton clearButton = new JButton("Clear Cart");
-        clearButton.addActionListener(e -> clearCart());
+        clearButton.addActionListener(Metrics.timed("clearCart", e -> clearCart()));
         cartButtons.add(removeButton);
         cartButtons.add(clearButton);
         cartPanel.add(cartButtons, BorderLayout.NORTH);
@@ -167,7 +256,7 @@ public class POSRestaurant extends JFrame {
         payButton.setFont(new Font("Arial", Font.BOLD, 14));
         payButton.setBackground(new Color(255, 140, 0));
         payButton.setForeground(Color.WHITE);
-        payButton.addActionListener(e -> processPayment());
+        payButton.addActionListener(Metrics.timed("processPayment", e -> processPayment()));
 
         JPanel bottomPanel = new JPanel(new BorderLayout());
         bottomPanel.add(paymentPanel, BorderLayout.CENTER);
@@ -203,34 +292,43 @@ public class POSRestaurant extends JFrame {
 
         JPanel buttonPanel = new JPanel(new FlowLayout());
         JButton restockButton = new JButton("Restock Selected Item");
-        restockButton.addActionListener(e -> {
+        restockButton.addActionListener(Metrics.timed("restock", e -> {
             int row = stockTable.getSelectedRow();
-            if (row >= 0) {
+            if (importing) {
+                JOptionPane.showMessageDialog(this, "A catalog import is running, please try again when it is done.",
+                        "Restock", JOptionPane.WARNING_MESSAGE);
+            } else if (row >= 0) {
                 String input = JOptionPane.showInputDialog("Enter quantity to add:");
                 if (input != null) {
                     try {
                         int qty = Integer.parseInt(input);
                         int id = (int) stockModel.getValueAt(row, 0);
-                        MenuItem item = menu.stream().filter(m -> m.getId() == id).findFirst().orElse(null);
-                        if (item != null) {
+                        MenuItem item = menuIndex.byId(id);
+                        // Journal it, and only then add it to the menu; the database is updated in the background
+                        if (item != null && persistence.submitRestock(id, qty,
+                                () -> JOptionPane.showMessageDialog(this, "Stock updated successfully!"),
+                                ex -> JOptionPane.showMessageDialog(this, "Could not save stock: " + ex.getMessage(),
+                                        "Error", JOptionPane.ERROR_MESSAGE))) {
                             item.addStock(qty);
-                            dbManager.updateStock(item.getId(), item.getStock()); // Save to database
                             updateStockTable(stockModel);
-                            updateMenuList();
-                            JOptionPane.showMessageDialog(this, "Stock updated successfully!");
+                            menuListModel.itemChanged(item);
                         }
                     } catch (NumberFormatException ex) {
                         JOptionPane.showMessageDialog(this, "Invalid quantity!", "Error", JOptionPane.ERROR_MESSAGE);
                     }
                 }
             }
-        });
+        }));
         buttonPanel.add(restockButton);
 
         JButton refreshButton = new JButton("🔄 Refresh");
-        refreshButton.addActionListener(e -> updateStockTable(stockModel));
+        refreshButton.addActionListener(Metrics.timed("refreshStock", e -> updateStockTable(stockModel)));
         buttonPanel.add(refreshButton);
 
+        JButton importButton = new JButton("📥 Import Catalog");
+        importButton.addActionListener(Metrics.timed("importCatalog", e -> importCatalog(stockModel)));
+        buttonPanel.add(importButton);
+
         panel.add(buttonPanel, BorderLayout.SOUTH);
 
         return panel;
@@ -243,10 +341,10 @@ public class POSRestaurant extends JFrame {
         // Statistics
         JPanel statsPanel = new JPanel(new GridLayout(1, 3, 10, 10));
 
-        JPanel ordersPanel = createStatPanel("Total Orders", String.valueOf(completedOrders.size()), Color.BLUE);
-        JPanel salesPanel = createStatPanel("Total Sales", "Rp " + String.format("%,.0f", getTotalSales()),
+        JPanel ordersPanel = createStatPanel("Total Orders", String.valueOf(salesAggregates.getOrderCount()), Color.BLUE);
+        JPanel salesPanel = createStatPanel("Total Sales", Money.format(getTotalSales()),
                 Color.GREEN);
-        JPanel avgPanel = createStatPanel("Avg Order", "Rp " + String.format("%,.0f", getAverageOrder()), Color.ORANGE);
+        JPanel avgPanel = createStatPanel("Avg Order", Money.format(getAverageOrder()), Color.ORANGE);
 
         statsPanel.add(ordersPanel);
         statsPanel.add(salesPanel);
@@ -258,28 +356,56 @@ public class POSRestaurant extends JFrame {
         JPanel bestSellersPanel = new JPanel(new BorderLayout());
         bestSellersPanel.setBorder(BorderFactory.createTitledBorder("Best Sellers"));
 
+        JComboBox<String> bestSellersRange = new JComboBox<>(new String[] { "All Time", "Today", "Last 7 Days" });
+        bestSellersPanel.add(bestSellersRange, BorderLayout.NORTH);
+
         DefaultListModel<String> bestSellersModel = new DefaultListModel<>();
-        updateBestSellers(bestSellersModel);
+        updateBestSellers(bestSellersModel, bestSellersRange.getSelectedIndex());
+        bestSellersRange.addActionListener(Metrics.timed("bestSellers",
+                e -> updateBestSellers(bestSellersModel, bestSellersRange.getSelectedIndex())));
 
         JList<String> bestSellersList = new JList<>(bestSellersModel);
-        bestSellersPanel.add(new JScrollPane(bestSellersList));
+        bestSellersPanel.add(new JScrollPane(bestSellersList), BorderLayout.CENTER);
+
+        // Order History - pages are fetched from the database as the user scrolls
+        JPanel historyPanel = new JPanel(new BorderLayout());
+        historyPanel.setBorder(BorderFactory.createTitledBorder("Order History"));
+
+        OrderHistoryTableModel historyModel = new OrderHistoryTableModel(dbManager, persistence, menu);
+        historyModel.loadNextPage();
+
+        JTable historyTable = new JTable(historyModel);
+        JScrollPane historyScroll = new JScrollPane(historyTable);
+        historyScroll.getVerticalScrollBar().addAdjustmentListener(e -> {
+            JScrollBar bar = (JScrollBar) e.getAdjustable();
+            boolean nearBottom = bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - historyTable.getRowHeight() * 5;
+            if (!e.getValueIsAdjusting() && nearBottom && historyModel.hasMore()) {
+                historyModel.loadNextPage();
+            }
+        });
+        historyPanel.add(historyScroll);
+
+        JPanel reportPanel = new JPanel(new GridLayout(1, 2, 10, 10));
+        reportPanel.add(bestSellersPanel);
+        reportPanel.add(historyPanel);
 
-        panel.add(bestSellersPanel, BorderLayout.CENTER);
+        panel.add(reportPanel, BorderLayout.CENTER);
 
         // Refresh button
         JButton refreshButton = new JButton("🔄 Refresh Report");
-        refreshButton.addActionListener(e -> {
+        refreshButton.addActionListener(Metrics.timed("refreshReport", e -> {
             ordersPanel.removeAll();
-            ordersPanel.add(createStatPanel("Total Orders", String.valueOf(completedOrders.size()), Color.BLUE));
+            ordersPanel.add(createStatPanel("Total Orders", String.valueOf(salesAggregates.getOrderCount()), Color.BLUE));
             salesPanel.removeAll();
             salesPanel
-                    .add(createStatPanel("Total Sales", "Rp " + String.format("%,.0f", getTotalSales()), Color.GREEN));
+                    .add(createStatPanel("Total Sales", Money.format(getTotalSales()), Color.GREEN));
             avgPanel.removeAll();
-            avgPanel.add(createStatPanel("Avg Order", "Rp " + String.format("%,.0f", getAverageOrder()), Color.ORANGE));
-            updateBestSellers(bestSellersModel);
+            avgPanel.add(createStatPanel("Avg Order", Money.format(getAverageOrder()), Color.ORANGE));
+            updateBestSellers(bestSellersModel, bestSellersRange.getSelectedIndex());
+            historyModel.reset();
             panel.revalidate();
             panel.repaint();
-        });
+        }));
         panel.add(refreshButton, BorderLayout.SOUTH);
 
         return panel;
@@ -303,67 +429,168 @@ public class POSRestaurant extends JFrame {
         return panel;
     }
 
-    private void addToCart(MenuItem item) {
+    // Show the menu items matching the search box and category
+    private void filterMenu() {
+        String query = menuSearchField.getText();
+        String category = (String) menuCategoryCombo.getSelectedItem();
+        if (ALL_CATEGORIES.equals(category)) {
+            category = null;
+        }
+        if (query.isBlank() && category == null) {
+            menuListModel.setItems(menu);
+        } else {
+            menuListModel.setItems(menuIndex.search(query, category, MENU_SEARCH_LIMIT));
+        }
+        if (menuListModel.getSize() > 0) {
+            menuList.setSelectedIndex(0);
+        }
+    }
+
+    private void timedFilterMenu() {
+        long start = System.nanoTime();
         try {
-            if (item.getStock() <= 0) {
-                throw new OutOfStockException(item.getName() + " is out of stock!");
-            }
+            filterMenu();
+        } finally {
+            Metrics.timer("edt.filterMenu").stop(start);
+        }
+    }
 
-            currentOrder.addItem(item, 1);
-            updateCartDisplay();
+    private void addToCart(MenuItem item) {
+        try {
+            // Reserves the unit, so no other cart can take it before payment
+            cartTableModel.addItem(item, 1);
             JOptionPane.showMessageDialog(this, item.getName() + " added to cart!");
         } catch (OutOfStockException e) {
             JOptionPane.showMessageDialog(this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
-    private void updateCartDisplay() {
-        cartTableModel.setRowCount(0);
+    private void updateTotals() {
+        totalLabel.setText(Money.format(currentOrder.getTotal()));
+        taxLabel.setText(Money.format(currentOrder.getTax()));
+        grandTotalLabel.setText(Money.format(currentOrder.getGrandTotal()));
+    }
 
-        for (Order.OrderItem item : currentOrder.getItems()) {
-            Object[] row = {
-                    item.getMenuItem().getName(),
-                    String.format("Rp %,.0f", item.getMenuItem().getPrice()),
-                    item.getQuantity(),
-                    String.format("Rp %,.0f", item.getSubtotal())
-            };
-            cartTableModel.addRow(row);
+    private void removeFromCart() {
+        int row = cartTable.getSelectedRow();
+        if (row >= 0) {
+            MenuItem item = currentOrder.getItems().get(row).getMenuItem();
+            cartTableModel.removeRow(row);
+            menuListModel.itemChanged(item);
         }
-
-        totalLabel.setText(String.format("Rp %,.0f", currentOrder.getTotal()));
-        taxLabel.setText(String.format("Rp %,.0f", currentOrder.getTax()));
-        grandTotalLabel.setText(String.format("Rp %,.0f", currentOrder.getGrandTotal()));
     }
 
-    private void updateCartQuantity(int row) {
-        try {
-            int newQty = Integer.parseInt(cartTableModel.getValueAt(row, 2).toString());
-            Order.OrderItem item = currentOrder.getItems().get(row);
-
-            if (newQty > item.getMenuItem().getStock()) {
-                throw new OutOfStockException("Only " + item.getMenuItem().getStock() + " available!");
+    // Add or update menu items from a CSV or JSON catalog (see MenuCatalogImporter).
+    // The import runs in the background; only the items it changed are then
+    // swapped into the menu. Checkouts and restocks wait until it is done, so the
+    // stock it writes is not raced by their journaled changes and the menu read
+    // back afterwards matches the database.
+    private void importCatalog(DefaultTableModel stockModel) {
+        if (importing) {
+            return;
+        }
+        if (!currentOrder.getItems().isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Finish or clear the current order before importing a catalog.",
+                    "Import Catalog", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Catalog (CSV, JSON)", "csv", "json", "jsonl"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        importing = true;
+        persistence.submit(() -> new MenuCatalogImporter(dbManager, persistence).importFile(file), result -> {
+            importing = false;
+            if (result == null) {
+                JOptionPane.showMessageDialog(this, "Could not import " + file.getFileName()
+                        + ". See the log for details.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
+            applyCatalog(result);
+            updateStockTable(stockModel);
+            JOptionPane.showMessageDialog(this, result.getSummary(), "Import Catalog",
+                    JOptionPane.INFORMATION_MESSAGE);
+        }, ex -> {
+            importing = false;
+            JOptionPane.showMessageDialog(this, "Could not import catalog: " + ex.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
 
-            currentOrder.updateQuantity(item.getMenuItem().getId(), newQty);
-            updateCartDisplay();
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            updateCartDisplay(); // Reset display
+    private void applyCatalog(MenuCatalogImporter.Result result) {
+        // A cart started during the import may hold old prices and the old items' reservations.
+        // Nothing else was journaled meanwhile, so the stock read back is current.
+        if (!currentOrder.getItems().isEmpty()) {
+            clearCart();
+        }
+        HashMap<Integer, Integer> positions = new HashMap<>(menu.size() * 2);
+        for (int i = 0; i < menu.size(); i++) {
+            positions.put(menu.get(i).getId(), i);
+        }
+        int replaced = 0;
+        for (MenuItem item : result.getChanged()) {
+            Integer position = positions.get(item.getId());
+            if (position == null) {
+                menu.add(item);
+                continue;
+            }
+            menu.set(position, item);
+            replaced++;
         }
-    }
 
-    private void removeFromCart() {
-        int row = cartTable.getSelectedRow();
-        if (row >= 0) {
-            Order.OrderItem item = currentOrder.getItems().get(row);
-            currentOrder.removeItem(item.getMenuItem().getId());
-            updateCartDisplay();
+        // Replacing an item is linear in its category, so a large update re-indexes once instead
+        if (replaced * 10 > menu.size()) {
+            menuIndex = new MenuIndex(menu);
+        } else {
+            for (MenuItem item : result.getChanged()) {
+                menuIndex.put(item);
+            }
         }
+        for (String category : menuIndex.getCategories()) {
+            if (((DefaultComboBoxModel<String>) menuCategoryCombo.getModel()).getIndexOf(category) < 0) {
+                menuCategoryCombo.addItem(category);
+            }
+        }
+        filterMenu();
     }
 
     private void clearCart() {
+        ArrayList<MenuItem> released = itemsOf(currentOrder);
+        currentOrder.releaseReservations();
         currentOrder = new Order();
-        updateCartDisplay();
+        cartTableModel.setOrder(currentOrder);
+        menuListModel.itemsChanged(released);
+    }
+
+    private ArrayList<MenuItem> itemsOf(Order order) {
+        ArrayList<MenuItem> items = new ArrayList<>(order.getItems().size());
+        for (Order.OrderItem item : order.getItems()) {
+            items.add(item.getMenuItem());
+        }
+        return items;
+    }
+
+    // The counters are read in the background. The state is only captured if no
+    // event was journaled since they were read: then every checkout and restock
+    // the tables hold has also reached the menu and the totals, and nothing else.
+    private void saveSnapshotIfCaughtUp() {
+        persistence.submit(dbManager::loadChangeCounters, counters -> {
+            if (counters == null || counters[0] != journal.getLastSequence()) {
+                return; // Events still on their way to the tables; try again next time
+            }
+            byte[] state = StateSnapshot.capture(counters, menu, salesAggregates);
+            persistence.submit(() -> snapshot.save(state), saved -> {}, error -> {});
+        }, error -> {});
+    }
+
+    private void releaseIdleCart() {
+        if (currentOrder.isIdle(CART_IDLE_TIMEOUT_MS)) {
+            clearCart();
+            JOptionPane.showMessageDialog(this, "Cart was cleared after " + CART_IDLE_TIMEOUT_MS / 60000
+                    + " minutes without activity.", "Cart Cleared", JOptionPane.INFORMATION_MESSAGE);
+        }
     }
 
     private void processPayment() {
@@ -372,39 +599,42 @@ public class POSRestaurant extends JFrame {
                 throw new InvalidPaymentException("Cart is empty!");
             }
 
-            double amount = Double.parseDouble(paymentField.getText());
-            String method = (String) paymentMethodCombo.getSelectedItem();
-
-            double change = currentOrder.processPayment(amount, method);
-
-            // Show receipt
-            JTextArea receiptArea = new JTextArea(currentOrder.getReceipt());
-            receiptArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
-            receiptArea.setEditable(false);
-
-            JOptionPane.showMessageDialog(this, new JScrollPane(receiptArea),
-                    "Receipt", JOptionPane.INFORMATION_MESSAGE);
-
-            JOptionPane.showMessageDialog(this,
-                    String.format("Payment successful!\nChange: Rp %,.0f", change),
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
+            if (importing) {
+                throw new InvalidPaymentException("A catalog import is running, please try again when it is done.");
+            }
 
-            // Save order to database
-            int savedOrderId = dbManager.saveOrder(currentOrder);
-            if (savedOrderId > 0) {
-                currentOrder.setOrderId(savedOrderId);
+            if (!persistence.canAcceptCheckout()) {
+                throw new InvalidPaymentException("Still saving earlier orders, please try again.");
             }
-            completedOrders.add(currentOrder);
 
-            // Update stock in database for all items
-            for (Order.OrderItem orderItem : currentOrder.getItems()) {
-                dbManager.updateStock(orderItem.getMenuItem().getId(), orderItem.getMenuItem().getStock());
+            long amount = Long.parseLong(paymentField.getText().trim());
+            String method = (String) paymentMethodCombo.getSelectedItem();
+
+            long change = currentOrder.processPayment(amount, method);
+
+            // Append the order to the journal, which gives it its number for the
+            // receipt; order, items and stock decrements reach the tables in the background
+            Order paidOrder = currentOrder;
+            long paidAt = System.nanoTime();
+            boolean saved = persistence.submitCheckout(paidOrder, orderId -> {
+                // Payment taken until the order is journaled and back on the EDT
+                Metrics.timer("checkout.paidToSaved").stop(paidAt);
+                paidOrder.setOrderId(orderId);
+                salesAggregates.recordOrder(paidOrder);
+                showReceipt(paidOrder, change);
+            }, ex -> JOptionPane.showMessageDialog(this,
+                    "The order could not be saved, payment was not taken: " + ex.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE));
+            if (!saved) {
+                // Not journaled, so not sold: the cart stays as it was, stock reserved again
+                paidOrder.cancelPayment();
+                return;
             }
 
             // Reset
             currentOrder = new Order();
-            updateCartDisplay();
-            updateMenuList();
+            cartTableModel.setOrder(currentOrder);
+            menuListModel.itemsChanged(itemsOf(paidOrder));
             paymentField.setText("");
 
         } catch (NumberFormatException e) {
@@ -414,11 +644,17 @@ public class POSRestaurant extends JFrame {
         }
     }
 
-    private void updateMenuList() {
-        menuListModel.clear();
-        for (MenuItem item : menu) {
-            menuListModel.addElement(item);
-        }
+    private void showReceipt(Order order, long change) {
+        JTextArea receiptArea = new JTextArea(order.getReceipt());
+        receiptArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        receiptArea.setEditable(false);
+
+        JOptionPane.showMessageDialog(this, new JScrollPane(receiptArea),
+                "Receipt", JOptionPane.INFORMATION_MESSAGE);
+
+        JOptionPane.showMessageDialog(this,
+                "Payment successful!\nChange: " + Money.format(change),
+                "Success", JOptionPane.INFORMATION_MESSAGE);
     }
 
     private void updateStockTable(DefaultTableModel model) {
@@ -428,7 +664,7 @@ public class POSRestaurant extends JFrame {
                     item.getId(),
                     item.getName(),
                     item.getCategory(),
-                    String.format("Rp %,.0f", item.getPrice()),
+                    Money.format(item.getPrice()),
                     item.getStock() + (item.getStock() < 10 ? " ⚠️" : ""),
                     "Restock"
             };
@@ -436,35 +672,32 @@ public class POSRestaurant extends JFrame {
         }
     }
 
-    private double getTotalSales() {
-        double total = 0;
-        for (Order order : completedOrders) {
-            total += order.getGrandTotal();
-        }
-        return total;
+    private long getTotalSales() {
+        return salesAggregates.getTotalSales();
     }
 
-    private double getAverageOrder() {
-        if (completedOrders.isEmpty())
-            return 0;
-        return getTotalSales() / completedOrders.size();
+    private long getAverageOrder() {
+        return salesAggregates.getAverageOrder();
     }
 
-    private void updateBestSellers(DefaultListModel<String> model) {
+    private void updateBestSellers(DefaultListModel<String> model, int range) {
         model.clear();
 
-        HashMap<String, Integer> sales = new HashMap<>();
-        for (Order order : completedOrders) {
-            for (Order.OrderItem item : order.getItems()) {
-                String name = item.getMenuItem().getName();
-                sales.put(name, sales.getOrDefault(name, 0) + item.getQuantity());
-            }
+        BestSellerTracker tracker;
+        switch (range) {
+            case 1:
+                tracker = salesAggregates.getTodayBestSellers();
+                break;
+            case 2:
+                tracker = salesAggregates.getLastWeekBestSellers();
+                break;
+            default:
+                tracker = salesAggregates.getAllTimeBestSellers();
         }
 
-        sales.entrySet().stream()
-                .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
-                .limit(5)
-                .forEach(entry -> model.addElement(entry.getKey() + " - " + entry.getValue() + " sold"));
+        for (BestSellerTracker.Entry item : tracker.top(BEST_SELLER_COUNT)) {
+            model.addElement(item.getName() + " - " + item.getQuantity() + " sold");
+        }
 
         if (model.isEmpty()) {
             model.addElement("No sales data yet");
@@ -472,6 +705,47 @@ public class POSRestaurant extends JFrame {
     }
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new POSRestaurant());
+        long startNanos = System.nanoTime();
+        Metrics.start();
+        Metrics.timeEventDispatch();
+
+        // Startup loads run here on the main thread, never on the EDT
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        dbManager.initializeDatabase();
+        OrderJournal journal;
+        try {
+            // Projects checkouts a crash kept from reaching the tables
+            journal = OrderJournal.open(dbManager, dbManager.getJournalFile());
+        } catch (IOException | SQLException e) {
+            System.err.println("❌ Cannot open order journal: " + e.getMessage());
+            JOptionPane.showMessageDialog(null, "Cannot open order journal:\n" + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            System.exit(1);
+            return;
+        }
+        dbManager.getArchiver().archiveClosedMonths(HOT_MONTHS);
+        dbManager.seedMenuItems();
+
+        // Menu and sales totals from the snapshot while the tables have not changed since it
+        StateSnapshot snapshot = new StateSnapshot(dbManager.getSnapshotFile());
+        long[] counters = dbManager.loadChangeCounters();
+        StateSnapshot.State state = snapshot.load(counters);
+        ArrayList<MenuItem> menu;
+        SalesAggregates salesAggregates;
+        if (state != null) {
+            menu = state.getMenu();
+            salesAggregates = state.getAggregates();
+        } else {
+            menu = dbManager.loadMenuItems();
+            salesAggregates = dbManager.loadSalesAggregates();
+        }
+        dbManager.releaseConnection(); // main ends here; the app uses the EDT and background threads
+
+        SwingUtilities.invokeLater(() -> {
+            new POSRestaurant(dbManager, journal, snapshot, menu, salesAggregates);
+            Metrics.timer("startup.ready").stop(startNanos);
+            System.out.println("🚀 Ready for orders " + (System.nanoTime() - startNanos) / 1_000_000
+                    + " ms after start");
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Runs database work on background threads so the Swing EDT never waits on SQLite.
+// Checkouts and restocks are appended to the order journal, which makes them
+// safe, and then queued for the writer thread. The writer projects everything
+// that queued up while the previous commit ran into the tables in one
+// transaction (group commit). An event that cannot be projected holds up the ones behind
+// it: the writer retries it with a growing pause rather than move on, and once
+// the queue fills, checkouts are refused until it goes through. A catalog
+// import journals its changes the same way and then waits for the writer to
+// catch up. Results are handed back through the callback executor, which for
+// the UI is SwingUtilities::invokeLater.
+class PersistenceExecutor {
+    private static final int QUEUE_CAPACITY = 256;
+    private static final int MAX_GROUP_SIZE = 32;
+    private static final long MAX_RETRY_PAUSE_MS = 5000;
+
+    private final DatabaseManager dbManager;
+    private final OrderJournal journal;
+    private final Executor callbacks;
+    private final ArrayBlockingQueue<OrderJournal.Event> projections = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ExecutorService io = Executors.newSingleThreadExecutor(daemon("db-io"));
+    private final Thread writer;
+    private volatile boolean running = true;
+    private final Object projectedLock = new Object();
+    private long appendedSequence; // Guarded by this
+    private long projectedSequence; // Guarded by projectedLock
+
+    public PersistenceExecutor(DatabaseManager dbManager, OrderJournal journal, Executor callbacks) {
+        this.dbManager = dbManager;
+        this.journal = journal;
+        this.callbacks = callbacks;
+        this.appendedSequence = journal.getLastSequence();
+        this.projectedSequence = appendedSequence; // open() has projected the rest
+        this.writer = daemon("db-writer").newThread(this::writeLoop);
+        writer.start();
+    }
+
+    // False when the projection queue is full; the caller should not take the payment yet
+    public boolean canAcceptCheckout() {
+        return projections.remainingCapacity() > 0;
+    }
+
+    // Journal a paid order. Once appended it is safe, so onSaved receives its
+    // order id straight away and the tables catch up in the background.
+    public boolean submitCheckout(Order order, Consumer<Integer> onSaved, Consumer<Exception> onError) {
+        OrderJournal.Event event = append(OrderJournal.Event.checkout(order), onError);
+        if (event == null) {
+            return false;
+        }
+        callbacks.execute(() -> onSaved.accept(event.getOrderId()));
+        return true;
+    }
+
+    // Journal units added to a menu item's stock
+    public boolean submitRestock(int menuItemId, int quantity, Runnable onSaved, Consumer<Exception> onError) {
+        if (append(OrderJournal.Event.restock(menuItemId, quantity), onError) == null) {
+            return false;
+        }
+        callbacks.execute(onSaved);
+        return true;
+    }
+
+    // Journal one event of a catalog import. Unlike a checkout it may wait for
+    // room in the queue, so it must not be called on the EDT.
+    public void submitCatalog(OrderJournal.Event event) throws IOException, InterruptedException {
+        synchronized (this) {
+            appendedSequence = journal.append(event).getSequence();
+            projections.put(event);
+        }
+    }
+
+    // Wait until every event journaled so far is in the tables. False on timeout.
+    public boolean awaitProjection(long timeoutMillis) throws InterruptedException {
+        long target;
+        synchronized (this) {
+            target = appendedSequence;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (projectedLock) {
+            while (projectedSequence < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                projectedLock.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    // Synchronized so events reach the writer in journal order; journal_state
+    // must never move past an event that is still waiting
+    private synchronized OrderJournal.Event append(OrderJournal.Event event, Consumer<Exception> onError) {
+        try {
+            OrderJournal.Event appended = journal.append(event);
+            appendedSequence = appended.getSequence();
+            // Waits only if the writer is a whole queue behind, which canAcceptCheckout
+            // already refuses; an appended event must reach the writer in order
+            projections.put(appended);
+            return appended;
+        } catch (IOException e) {
+            Metrics.counter("journal.appendErrors").increment();
+            System.err.println("❌ Error writing journal: " + e.getMessage());
+            callbacks.execute(() -> onError.accept(e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            callbacks.execute(() -> onError.accept(e));
+        }
+        return null;
+    }
+
+    // Run any other database call off the EDT, in submission order
+    public <T> void submit(Callable<T> task, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        io.execute(() -> {
+            try {
+                T result = task.call();
+                callbacks.execute(() -> onSuccess.accept(result));
+            } catch (Exception e) {
+                callbacks.execute(() -> onError.accept(e));
+            }
+        });
+    }
+
+    // Project everything still queued, then stop the background threads
+    public void shutdown() {
+        running = false;
+        io.shutdown();
+        try {
+            writer.join();
+            io.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        // Events taken from the queue and not yet in the tables, oldest first
+        List<OrderJournal.Event> group = new ArrayList<>(MAX_GROUP_SIZE);
+        int failures = 0;
+        while (running || !projections.isEmpty() || !group.isEmpty()) {
+            try {
+                if (group.isEmpty()) {
+                    OrderJournal.Event first = projections.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    group.add(first);
+                }
+                projections.drainTo(group, MAX_GROUP_SIZE - group.size());
+                int applied = dbManager.applyJournal(group);
+                if (applied > 0) {
+                    long sequence = group.get(applied - 1).getSequence();
+                    group.subList(0, applied).clear();
+                    synchronized (projectedLock) {
+                        projectedSequence = sequence;
+                        projectedLock.notifyAll();
+                    }
+                }
+                if (group.isEmpty()) {
+                    failures = 0;
+                    continue;
+                }
+
+                // The first event left failed; nothing behind it may be projected first
+                failures++;
+                if (!running) {
+                    System.err.println("⚠️ " + (group.size() + projections.size())
+                            + " journal events were not projected; they are replayed on the next start");
+                    return;
+                }
+                Metrics.counter("journal.projectionRetries").increment();
+                Thread.sleep(Math.min(100L << Math.min(failures, 6), MAX_RETRY_PAUSE_MS));
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Renders receipts without String.format. The fixed parts of the layout
+// (header, separators, footer) are built once, both as text and as ESC/POS
+// bytes; each render only appends the order's own values into a buffer that
+// is reused between calls. A renderer is not thread-safe, use one per thread.
+class ReceiptRenderer {
+    // Column widths of the layout, matching the original format strings
+    private static final int NAME_WIDTH = 20;   // %-20s
+    private static final int QTY_WIDTH = 4;     // %4dx
+    private static final int AMOUNT_WIDTH = 12; // %12s
+    private static final int LABEL_WIDTH = 30;  // %-30s
+    private static final String SPACES = "                              ";
+
+    private static final String HEADER = "\n╔════════════════════════════════════╗\n"
+            + "║     WARUNG PADANG SEDERHANA       ║\n"
+            + "║      Jl. Merdeka No. 123          ║\n"
+            + "╠════════════════════════════════════╣\n";
+    private static final String SEPARATOR = "────────────────────────────────────\n";
+    private static final String THANKS = "    Terima Kasih! 🙏\n";
+    private static final String ENJOY = "    Selamat Menikmati! 😋\n";
+    private static final String FOOTER = "╚════════════════════════════════════╝\n";
+
+    // ESC/POS commands
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte[] INIT = { ESC, '@', ESC, 't', 0 };   // Reset, code page PC437
+    private static final byte[] ALIGN_LEFT = { ESC, 'a', 0 };
+    private static final byte[] ALIGN_CENTER = { ESC, 'a', 1 };
+    private static final byte[] BOLD_ON = { ESC, 'E', 1 };
+    private static final byte[] BOLD_OFF = { ESC, 'E', 0 };
+    private static final byte[] FEED_AND_CUT = { GS, 'V', 66, 3 };  // Feed 3 lines, partial cut
+
+    // Compiled fixed parts of the printer stream
+    private static final byte[] HEADER_BYTES = concat(INIT, ALIGN_CENTER, BOLD_ON, toPrinterBytes(HEADER),
+            BOLD_OFF, ALIGN_LEFT);
+    private static final byte[] SEPARATOR_BYTES = toPrinterBytes(SEPARATOR);
+    private static final byte[] FOOTER_BYTES = concat(ALIGN_CENTER, toPrinterBytes(THANKS),
+            toPrinterBytes(ENJOY), toPrinterBytes(FOOTER), FEED_AND_CUT);
+
+    private final StringBuilder text = new StringBuilder(1024);
+    private final StringBuilder line = new StringBuilder(64);
+    private ByteBuffer bytes = ByteBuffer.allocate(1024);
+
+    // Same text the receipt dialog has always shown
+    public String renderText(Order order) {
+        text.setLength(0);
+        text.append(HEADER);
+        appendOrderHeader(text, order);
+        text.append(SEPARATOR);
+        for (Order.OrderItem item : order.getItems()) {
+            appendItemLine(text, item);
+        }
+        text.append(SEPARATOR);
+        appendSummaryLine(text, "Subtotal:", order.getTotal());
+        appendSummaryLine(text, "Tax (10%):", order.getTax());
+        text.append(SEPARATOR);
+        appendSummaryLine(text, "TOTAL:", order.getGrandTotal());
+        appendPaymentLine(text, order);
+        appendSummaryLine(text, "Change:", order.getPaymentAmount() - order.getGrandTotal());
+        text.append(SEPARATOR);
+        text.append(THANKS);
+        text.append(ENJOY);
+        text.append(FOOTER);
+        return text.toString();
+    }
+
+    // Raw ESC/POS stream for a thermal printer. The returned buffer is flipped and
+    // ready to read; it is reused by the next render call.
+    public ByteBuffer renderEscPos(Order order) {
+        bytes.clear();
+        put(HEADER_BYTES);
+        line.setLength(0);
+        appendOrderHeader(line, order);
+        putLine();
+        put(SEPARATOR_BYTES);
+        for (Order.OrderItem item : order.getItems()) {
+            line.setLength(0);
+            appendItemLine(line, item);
+            putLine();
+        }
+        put(SEPARATOR_BYTES);
+        putSummaryLine("Subtotal:", order.getTotal());
+        putSummaryLine("Tax (10%):", order.getTax());
+        put(SEPARATOR_BYTES);
+        put(BOLD_ON);
+        putSummaryLine("TOTAL:", order.getGrandTotal());
+        put(BOLD_OFF);
+        line.setLength(0);
+        appendPaymentLine(line, order);
+        putLine();
+        putSummaryLine("Change:", order.getPaymentAmount() - order.getGrandTotal());
+        put(SEPARATOR_BYTES);
+        put(FOOTER_BYTES);
+        bytes.flip();
+        return bytes;
+    }
+
+    // Send the ESC/POS stream to a printer port, or a file standing in for one
+    public void print(Order order, WritableByteChannel port) throws IOException {
+        ByteBuffer receipt = renderEscPos(order);
+        while (receipt.hasRemaining()) {
+            port.write(receipt);
+        }
+    }
+
+    private void appendOrderHeader(StringBuilder sb, Order order) {
+        sb.append("  Order #");
+        int id = order.getOrderId();
+        for (int pad = 1000; pad > 1 && id < pad; pad /= 10) {
+            sb.append('0'); // %04d
+        }
+        sb.append(id).append('\n');
+        sb.append("  ").append(order.getTimestamp()).append('\n');
+    }
+
+    private void appendItemLine(StringBuilder sb, Order.OrderItem item) {
+        int start = sb.length();
+        sb.append(item.getMenuItem().getName());
+        padRight(sb, start, NAME_WIDTH);
+        sb.append(' ');
+
+        start = sb.length();
+        sb.append(item.getQuantity());
+        padLeft(sb, start, QTY_WIDTH);
+        sb.append("x ");
+
+        appendAmount(sb, item.getSubtotal());
+        sb.append('\n');
+    }
+
+    private void appendSummaryLine(StringBuilder sb, String label, long amount) {
+        int start = sb.length();
+        sb.append(label);
+        padRight(sb, start, LABEL_WIDTH);
+        sb.append(' ');
+        appendAmount(sb, amount);
+        sb.append('\n');
+    }
+
+    private void appendPaymentLine(StringBuilder sb, Order order) {
+        int start = sb.length();
+        sb.append("Payment (").append(order.getPaymentMethod()).append("):");
+        padRight(sb, start, LABEL_WIDTH);
+        sb.append(' ');
+        appendAmount(sb, order.getPaymentAmount());
+        sb.append('\n');
+    }
+
+    // "Rp 1,000" right-aligned in AMOUNT_WIDTH
+    private void appendAmount(StringBuilder sb, long amount) {
+        int start = sb.length();
+        sb.append("Rp ");
+        Money.appendGrouped(sb, amount);
+        padLeft(sb, start, AMOUNT_WIDTH);
+    }
+
+    // Pad what was appended since start with trailing spaces up to width
+    private static void padRight(StringBuilder sb, int start, int width) {
+        for (int n = sb.length() - start; n < width; n++) {
+            sb.append(' ');
+        }
+    }
+
+    // Pad what was appended since start with leading spaces up to width
+    private static void padLeft(StringBuilder sb, int start, int width) {
+        int missing = width - (sb.length() - start);
+        if (missing > 0) {
+            sb.insert(start, SPACES, 0, missing);
+        }
+    }
+
+    private void putSummaryLine(String label, long amount) {
+        line.setLength(0);
+        appendSummaryLine(line, label, amount);
+        putLine();
+    }
+
+    private void putLine() {
+        ensureCapacity(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            bytes.put(toPrinterByte(line.charAt(i)));
+        }
+    }
+
+    private void put(byte[] data) {
+        ensureCapacity(data.length);
+        bytes.put(data);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (bytes.remaining() < extra) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(bytes.capacity() * 2, bytes.position() + extra));
+            bytes.flip();
+            bigger.put(bytes);
+            bytes = bigger;
+        }
+    }
+
+    private static byte[] toPrinterBytes(String s) {
+        ByteBuffer out = ByteBuffer.allocate(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isSurrogate(c)) {
+                continue; // Emoji are not in the printer's code page
+            }
+            out.put(toPrinterByte(c));
+        }
+        byte[] result = new byte[out.position()];
+        out.flip();
+        out.get(result);
+        return result;
+    }
+
+    // Map a character to code page PC437; box drawing has its own glyphs there
+    private static byte toPrinterByte(char c) {
+        if (c < 0x80) {
+            return (byte) c;
+        }
+        switch (c) {
+            case '═': return (byte) 0xCD;
+            case '║': return (byte) 0xBA;
+            case '╔': return (byte) 0xC9;
+            case '╗': return (byte) 0xBB;
+            case '╚': return (byte) 0xC8;
+            case '╝': return (byte) 0xBC;
+            case '╠': return (byte) 0xCC;
+            case '╣': return (byte) 0xB9;
+            case '─': return (byte) 0xC4;
+            default: return (byte) '?';
+        }
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+// Running sales totals for the report tab. Seeded once from the database at
+// startup and then updated once per completed checkout, so reading them never
+// walks the order history.
+class SalesAggregates {
+    private int orderCount;
+    private long totalSales;
+    private final BestSellerTracker allTime = new BestSellerTracker(0);
+    private final BestSellerTracker today = new BestSellerTracker(1);
+    private final BestSellerTracker lastWeek = new BestSellerTracker(7);
+
+    // Used when seeding from the database
+    public void setOrderTotals(int orderCount, long totalSales) {
+        this.orderCount = orderCount;
+        this.totalSales = totalSales;
+    }
+
+    // All-time quantity sold of one item (seeding)
+    public void addItemSales(int menuItemId, String name, int quantity) {
+        allTime.record(menuItemId, name, quantity, 0);
+    }
+
+    // One sold line with its time, for the windowed rankings (seeding)
+    public void addRecentSale(int menuItemId, String name, int quantity, long timestamp) {
+        today.record(menuItemId, name, quantity, timestamp);
+        lastWeek.record(menuItemId, name, quantity, timestamp);
+    }
+
+    // Fold one completed checkout into the totals
+    public void recordOrder(Order order) {
+        orderCount++;
+        totalSales += order.getGrandTotal();
+        long timestamp = order.getTimestamp().getTime();
+        for (Order.OrderItem item : order.getItems()) {
+            MenuItem menuItem = item.getMenuItem();
+            addItemSales(menuItem.getId(), menuItem.getName(), item.getQuantity());
+            addRecentSale(menuItem.getId(), menuItem.getName(), item.getQuantity(), timestamp);
+        }
+    }
+
+    public int getOrderCount() { return orderCount; }
+    public long getTotalSales() { return totalSales; }
+
+    public long getAverageOrder() {
+        return orderCount == 0 ? 0 : (totalSales + orderCount / 2) / orderCount;
+    }
+
+    public BestSellerTracker getAllTimeBestSellers() { return allTime; }
+    public BestSellerTracker getTodayBestSellers() { return today; }
+    public BestSellerTracker getLastWeekBestSellers() { return lastWeek; }
+}
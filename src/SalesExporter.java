@@ -0,0 +1,677 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// Exports completed orders, or their lines, for the accountants. Rows go
+// straight from the JDBC cursor into a reused buffer that is written to a file
+// channel whenever it fills, so memory stays the same for a day or for years
+// of history; nothing is turned into Order objects. Archived months are read
+// one by one with their file attached.
+//
+// Two formats:
+// - CSV, one row per line, with a header and local "yyyy-MM-dd HH:mm:ss" times
+// - Columnar: rows in blocks of BLOCK_ROWS, each column of a block stored on
+//   its own. Numbers are zigzag varints of the difference to the previous value
+//   in the block, text is dictionary coded per block, so ids, times and repeated
+//   names take a byte or two. columnarToCsv reads it back into the same bytes
+//   the CSV export writes, empty fields for NULLs included.
+//
+// Columnar layout, all counts and lengths unsigned varints:
+//   "CKTC" version(1 byte) columnCount {type(1 byte) nameLength name}...
+//   {rowCount {columnByteLength columnBytes}...}... 0
+// A number is 0 for null, or 1 + the zigzag difference to the previous number
+// in the block that was not null (version 1 files have no null marker). A text
+// value is 0 for null, 1 followed by length and UTF-8 bytes for a value new to
+// the block, or 2 + its index among the block's new values.
+class SalesExporter {
+    enum Dataset { ORDERS, ORDER_ITEMS }
+    enum Format { CSV, COLUMNAR }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BLOCK_ROWS = 4096;
+    private static final byte[] MAGIC = { 'C', 'K', 'T', 'C' };
+    private static final byte VERSION = 2;
+
+    // Column types; TIME is epoch millis, written as local time in CSV
+    private static final byte LONG = 1;
+    private static final byte TEXT = 2;
+    private static final byte TIME = 3;
+
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private static final String[] ORDER_COLUMNS = {
+            "order_id", "created_at", "payment_method", "payment_amount", "total", "tax", "grand_total" };
+    private static final byte[] ORDER_TYPES = { LONG, TIME, TEXT, LONG, LONG, LONG, LONG };
+
+    private static final String[] ITEM_COLUMNS = {
+            "order_id", "created_at", "payment_method", "menu_item_id", "menu_item_name", "category",
+            "quantity", "price", "subtotal" };
+    private static final byte[] ITEM_TYPES = { LONG, TIME, TEXT, LONG, TEXT, TEXT, LONG, LONG, LONG };
+
+    // Both queries walk the orders(status, created_at) index in order, and an
+    // order's lines the order_items(order_id) index, which keeps them in id
+    // order, so SQLite never sorts and the cursor streams. With a category, orders are those
+    // with at least one line in it, and lines are only that category's.
+    private static final String ORDERS_SQL = """
+        SELECT o.id, o.created_at, o.payment_method, o.payment_amount, o.total, o.tax, o.grand_total
+        FROM %1$s.orders o
+        WHERE o.status = 'Completed' AND o.created_at >= ? AND o.created_at < ?
+          AND (? IS NULL OR EXISTS (SELECT 1
+                                    FROM %1$s.order_items oi
+                                    JOIN main.menu_items m ON m.id = oi.menu_item_id
+                                    WHERE oi.order_id = o.id AND m.category = ?))
+        ORDER BY o.created_at, o.id
+    """;
+
+    private static final String ITEMS_SQL = """
+        SELECT o.id, o.created_at, o.payment_method, oi.menu_item_id, oi.menu_item_name, m.category,
+               oi.quantity, oi.price, oi.subtotal
+        FROM %1$s.orders o
+        JOIN %1$s.order_items oi ON oi.order_id = o.id
+        LEFT JOIN main.menu_items m ON m.id = oi.menu_item_id
+        WHERE o.status = 'Completed' AND o.created_at >= ? AND o.created_at < ?
+          AND (? IS NULL OR m.category = ?)
+        ORDER BY o.created_at, o.id, oi.id
+    """;
+
+    private final DatabaseManager dbManager;
+
+    // Receives rows from the cursor and writes them out
+    private interface RowWriter {
+        void row(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    public SalesExporter(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    // Export completed orders with created_at in [from, to), only those of a
+    // category unless it is null. The file is written under a temporary name and
+    // renamed when complete. Returns the rows written, or -1 on failure.
+    public long export(Dataset dataset, Format format, long from, long to, String category, Path file) {
+        long start = System.nanoTime();
+        String[] columns = dataset == Dataset.ORDERS ? ORDER_COLUMNS : ITEM_COLUMNS;
+        byte[] types = dataset == Dataset.ORDERS ? ORDER_TYPES : ITEM_TYPES;
+        String sql = dataset == Dataset.ORDERS ? ORDERS_SQL : ITEMS_SQL;
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        long[] rows = new long[1];
+
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            RowWriter writer = format == Format.CSV
+                    ? new CsvWriter(channel, columns, types)
+                    : new ColumnarWriter(channel, columns, types);
+            OrderArchiver archiver = dbManager.getArchiver();
+            for (OrderArchiver.ArchivedMonth archive : archiver.getArchives()) {
+                if (archive.overlaps(from, to)) {
+                    archiver.read(archive, connection -> {
+                        try {
+                            rows[0] += stream(connection, sql.formatted(OrderArchiver.SCHEMA), from, to, category,
+                                    writer);
+                        } catch (IOException e) {
+                            // SqlWork only throws SQLException; the message still names the write failure
+                            throw new SQLException("Writing export failed: " + e.getMessage(), e);
+                        }
+                        return null;
+                    });
+                }
+            }
+            rows[0] += stream(dbManager.getConnection(), sql.formatted("main"), from, to, category, writer);
+            writer.finish();
+            channel.force(false);
+        } catch (IOException | SQLException e) {
+            Metrics.counter("export.errors").increment();
+            System.err.println("❌ Error exporting sales: " + e.getMessage());
+            deleteQuietly(partial);
+            return -1;
+        } finally {
+            Metrics.timer("export.sales").stop(start);
+        }
+
+        try {
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Metrics.counter("export.errors").increment();
+            System.err.println("❌ Error saving export " + file + ": " + e.getMessage());
+            return -1;
+        }
+        Metrics.counter("export.rows").add(rows[0]);
+        System.out.println("✅ Exported " + rows[0] + " rows to " + file);
+        return rows[0];
+    }
+
+    private long stream(Connection connection, String sql, long from, long to, String category, RowWriter writer)
+            throws SQLException, IOException {
+        long rows = 0;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, from);
+            pstmt.setLong(2, to);
+            pstmt.setString(3, category);
+            pstmt.setString(4, category);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    writer.row(rs);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("❌ Error removing " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static class CsvWriter implements RowWriter {
+        private final WritableByteChannel channel;
+        private final byte[] types;
+        private final ByteSink out = new ByteSink(BUFFER_SIZE);
+
+        CsvWriter(WritableByteChannel channel, String[] columns, byte[] types) {
+            this.channel = channel;
+            this.types = types;
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    out.put((byte) ',');
+                }
+                out.putUtf8(columns[i]);
+            }
+            out.put((byte) '\n');
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < types.length; i++) {
+                if (i > 0) {
+                    out.put((byte) ',');
+                }
+                if (types[i] == TEXT) {
+                    putCsvText(out, rs.getString(i + 1));
+                } else {
+                    long value = rs.getLong(i + 1);
+                    if (!rs.wasNull()) {
+                        putCsvNumber(out, types[i], value);
+                    }
+                }
+            }
+            out.put((byte) '\n');
+            if (out.size() >= BUFFER_SIZE) {
+                out.drainTo(channel);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.drainTo(channel);
+        }
+    }
+
+    private static void putCsvNumber(ByteSink out, byte type, long value) {
+        if (type == TIME) {
+            out.putUtf8(TIME_FORMAT.format(Instant.ofEpochMilli(value)));
+        } else {
+            out.putDecimal(value);
+        }
+    }
+
+    // Quoted only when it holds a separator, quote or line break
+    private static void putCsvText(ByteSink out, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.putUtf8(value);
+            return;
+        }
+        out.put((byte) '"');
+        out.putUtf8(value.replace("\"", "\"\""));
+        out.put((byte) '"');
+    }
+
+    private static class ColumnarWriter implements RowWriter {
+        private final WritableByteChannel channel;
+        private final byte[] types;
+        private final ByteSink[] blocks;
+        private final long[] previous;
+        private final ArrayList<HashMap<String, Integer>> dictionaries = new ArrayList<>();
+        private final ByteSink out = new ByteSink(BUFFER_SIZE);
+        private int rowsInBlock;
+
+        ColumnarWriter(WritableByteChannel channel, String[] columns, byte[] types) {
+            this.channel = channel;
+            this.types = types;
+            this.blocks = new ByteSink[columns.length];
+            this.previous = new long[columns.length];
+            out.put(MAGIC);
+            out.put(VERSION);
+            out.putVarLong(columns.length);
+            for (int i = 0; i < columns.length; i++) {
+                out.put(types[i]);
+                out.putVarLong(ByteSink.utf8Length(columns[i]));
+                out.putUtf8(columns[i]);
+                blocks[i] = new ByteSink(BLOCK_ROWS * 2);
+                dictionaries.add(new HashMap<>());
+            }
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] == TEXT) {
+                    putText(i, rs.getString(i + 1));
+                } else {
+                    long value = rs.getLong(i + 1);
+                    if (rs.wasNull()) {
+                        blocks[i].putVarLong(0);
+                    } else {
+                        blocks[i].putVarLong(1 + zigzag(value - previous[i]));
+                        previous[i] = value;
+                    }
+                }
+            }
+            if (++rowsInBlock == BLOCK_ROWS) {
+                writeBlock();
+            }
+        }
+
+        private void putText(int column, String value) {
+            ByteSink block = blocks[column];
+            if (value == null) {
+                block.putVarLong(0);
+                return;
+            }
+            HashMap<String, Integer> dictionary = dictionaries.get(column);
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                block.putVarLong(2 + index);
+                return;
+            }
+            dictionary.put(value, dictionary.size());
+            block.putVarLong(1);
+            block.putVarLong(ByteSink.utf8Length(value));
+            block.putUtf8(value);
+        }
+
+        private void writeBlock() throws IOException {
+            out.putVarLong(rowsInBlock);
+            for (int i = 0; i < blocks.length; i++) {
+                out.putVarLong(blocks[i].size());
+                out.put(blocks[i]);
+                blocks[i].clear();
+                dictionaries.get(i).clear();
+                previous[i] = 0;
+            }
+            out.drainTo(channel);
+            rowsInBlock = 0;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (rowsInBlock > 0) {
+                writeBlock();
+            }
+            out.putVarLong(0);
+            out.drainTo(channel);
+        }
+    }
+
+    // Turn a columnar export back into the CSV the same export would have
+    // written, one block in memory at a time. Returns the rows converted.
+    public static long columnarToCsv(Path columnar, Path csv) throws IOException {
+        try (FileChannel in = FileChannel.open(columnar, StandardOpenOption.READ);
+             FileChannel outChannel = FileChannel.open(csv, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteSource source = new ByteSource(in);
+            for (byte b : MAGIC) {
+                if (source.get() != b) {
+                    throw new IOException("Not a columnar sales export: " + columnar);
+                }
+            }
+            byte version = source.get();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported columnar export version: " + columnar);
+            }
+            int columnCount = (int) source.getVarLong();
+            String[] names = new String[columnCount];
+            byte[] types = new byte[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                types[i] = source.get();
+                names[i] = source.getUtf8((int) source.getVarLong());
+            }
+
+            CsvWriter csvWriter = new CsvWriter(outChannel, names, types);
+            ByteSink out = csvWriter.out;
+            long[][] numbers = new long[columnCount][];
+            boolean[][] nulls = new boolean[columnCount][];
+            String[][] texts = new String[columnCount][];
+            ArrayList<String> dictionary = new ArrayList<>();
+            long rows = 0;
+            int rowCount;
+            while ((rowCount = (int) source.getVarLong()) > 0) {
+                for (int c = 0; c < columnCount; c++) {
+                    source.getVarLong(); // Column byte length, for readers that skip columns
+                    if (types[c] == TEXT) {
+                        texts[c] = decodeText(source, rowCount, texts[c], dictionary);
+                    } else {
+                        if (nulls[c] == null || nulls[c].length < rowCount) {
+                            nulls[c] = new boolean[rowCount];
+                        }
+                        numbers[c] = decodeNumbers(source, version, rowCount, numbers[c], nulls[c]);
+                    }
+                }
+                for (int r = 0; r < rowCount; r++) {
+                    for (int c = 0; c < columnCount; c++) {
+                        if (c > 0) {
+                            out.put((byte) ',');
+                        }
+                        if (types[c] == TEXT) {
+                            putCsvText(out, texts[c][r]);
+                        } else if (!nulls[c][r]) {
+                            putCsvNumber(out, types[c], numbers[c][r]);
+                        }
+                    }
+                    out.put((byte) '\n');
+                    if (out.size() >= BUFFER_SIZE) {
+                        out.drainTo(outChannel);
+                    }
+                }
+                rows += rowCount;
+            }
+            csvWriter.finish();
+            return rows;
+        }
+    }
+
+    // Fills nulls for the block's rows as well
+    private static long[] decodeNumbers(ByteSource source, byte version, int rowCount, long[] reuse, boolean[] nulls)
+            throws IOException {
+        long[] values = reuse != null && reuse.length >= rowCount ? reuse : new long[rowCount];
+        long value = 0;
+        for (int r = 0; r < rowCount; r++) {
+            long zigzag = source.getVarLong();
+            if (version > 1) {
+                nulls[r] = zigzag == 0;
+                if (nulls[r]) {
+                    continue;
+                }
+                zigzag--;
+            }
+            value += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[r] = value;
+        }
+        return values;
+    }
+
+    private static String[] decodeText(ByteSource source, int rowCount, String[] reuse, ArrayList<String> dictionary)
+            throws IOException {
+        String[] values = reuse != null && reuse.length >= rowCount ? reuse : new String[rowCount];
+        dictionary.clear();
+        for (int r = 0; r < rowCount; r++) {
+            int code = (int) source.getVarLong();
+            if (code == 0) {
+                values[r] = null;
+            } else if (code == 1) {
+                values[r] = source.getUtf8((int) source.getVarLong());
+                dictionary.add(values[r]);
+            } else {
+                values[r] = dictionary.get(code - 2);
+            }
+        }
+        return values;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // Growable byte buffer, drained into a channel by its owner
+    private static class ByteSink {
+        private ByteBuffer buffer;
+
+        ByteSink(int capacity) {
+            buffer = ByteBuffer.allocate(capacity);
+        }
+
+        int size() {
+            return buffer.position();
+        }
+
+        void clear() {
+            buffer.clear();
+        }
+
+        void put(byte b) {
+            ensureCapacity(1);
+            buffer.put(b);
+        }
+
+        void put(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void put(ByteSink other) {
+            ensureCapacity(other.size());
+            buffer.put(other.buffer.array(), 0, other.size());
+        }
+
+        void putVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        // Decimal digits, without going through a String
+        void putDecimal(long value) {
+            ensureCapacity(20);
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            int start = buffer.position();
+            do {
+                buffer.put((byte) ('0' + value % 10));
+                value /= 10;
+            } while (value > 0);
+            // Digits were written backwards
+            for (int i = start, j = buffer.position() - 1; i < j; i++, j--) {
+                byte b = buffer.get(i);
+                buffer.put(i, buffer.get(j));
+                buffer.put(j, b);
+            }
+        }
+
+        void putUtf8(String s) {
+            ensureCapacity(s.length() * 3);
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | c >> 6));
+                    buffer.put((byte) (0x80 | c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buffer.put((byte) (0xF0 | cp >> 18));
+                    buffer.put((byte) (0x80 | cp >> 12 & 0x3F));
+                    buffer.put((byte) (0x80 | cp >> 6 & 0x3F));
+                    buffer.put((byte) (0x80 | cp & 0x3F));
+                } else {
+                    buffer.put((byte) (0xE0 | c >> 12));
+                    buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                    buffer.put((byte) (0x80 | c & 0x3F));
+                }
+            }
+        }
+
+        static int utf8Length(String s) {
+            int length = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    length++;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+
+        void drainTo(WritableByteChannel channel) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensureCapacity(int extra) {
+            if (buffer.remaining() < extra) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + extra));
+                buffer.flip();
+                bigger.put(buffer);
+                buffer = bigger;
+            }
+        }
+    }
+
+    // Buffered reads from a channel
+    private static class ByteSource {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        ByteSource(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        byte get() throws IOException {
+            if (!buffer.hasRemaining()) {
+                fill();
+            }
+            return buffer.get();
+        }
+
+        long getVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        String getUtf8(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = get();
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void fill() throws IOException {
+            buffer.clear();
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (read < 0) {
+                throw new IOException("Unexpected end of columnar export");
+            }
+        }
+    }
+
+    // Command line export for the accountants:
+    //   SalesExporter [--orders] [--columnar] [--from 2026-01-01] [--to 2026-02-01] [--category Food] <file>
+    //   SalesExporter --to-csv <export.ckt> <file.csv>
+    // Dates are local days, --to exclusive; without them everything is exported.
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && "--to-csv".equals(args[0])) {
+            long rows = columnarToCsv(Paths.get(args[1]), Paths.get(args[2]));
+            System.out.println("✅ Converted " + rows + " rows to " + args[2]);
+            return;
+        }
+
+        Dataset dataset = Dataset.ORDER_ITEMS;
+        Format format = Format.CSV;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        String category = null;
+        String file = null;
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--orders":
+                    dataset = Dataset.ORDERS;
+                    break;
+                case "--columnar":
+                    format = Format.COLUMNAR;
+                    break;
+                case "--from":
+                    from = LocalDate.parse(args[++i]).atStartOfDay(zone).toInstant().toEpochMilli();
+                    break;
+                case "--to":
+                    to = LocalDate.parse(args[++i]).atStartOfDay(zone).toInstant().toEpochMilli();
+                    break;
+                case "--category":
+                    category = args[++i];
+                    break;
+                default:
+                    file = args[i];
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: SalesExporter [--orders] [--columnar] [--from yyyy-MM-dd] [--to yyyy-MM-dd]"
+                    + " [--category name] <file>");
+            System.exit(2);
+        }
+
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        dbManager.initializeDatabase();
+        long rows = new SalesExporter(dbManager).export(dataset, format, from, to, category, Paths.get(file));
+        dbManager.close();
+        if (rows < 0) {
+            System.exit(1);
+        }
+    }
+}
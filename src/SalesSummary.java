@@ -0,0 +1,52 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Completed sales in a time range [from, to), e.g. one day or one cashier shift
+class SalesSummary {
+    private final long from;
+    private final long to;
+    private final int orderCount;
+    private final long totalSales;
+    private final long totalTax;
+    private final ArrayList<BestSellerTracker.Entry> items;
+
+    public SalesSummary(long from, long to, int orderCount, long totalSales, long totalTax,
+            ArrayList<BestSellerTracker.Entry> items) {
+        this.from = from;
+        this.to = to;
+        this.orderCount = orderCount;
+        this.totalSales = totalSales;
+        this.totalTax = totalTax;
+        this.items = items;
+    }
+
+    // Parts of one range added up, e.g. archived months and the hot database
+    static SalesSummary combine(long from, long to, List<SalesSummary> parts) {
+        int orderCount = 0;
+        long totalSales = 0;
+        long totalTax = 0;
+        BestSellerTracker sold = new BestSellerTracker(0);
+        for (SalesSummary part : parts) {
+            orderCount += part.orderCount;
+            totalSales += part.totalSales;
+            totalTax += part.totalTax;
+            for (BestSellerTracker.Entry item : part.items) {
+                sold.record(item.getMenuItemId(), item.getName(), item.getQuantity(), part.from);
+            }
+        }
+        return new SalesSummary(from, to, orderCount, totalSales, totalTax, sold.top(Integer.MAX_VALUE));
+    }
+
+    public long getFrom() { return from; }
+    public long getTo() { return to; }
+    public int getOrderCount() { return orderCount; }
+    public long getTotalSales() { return totalSales; }
+    public long getTotalTax() { return totalTax; }
+
+    public long getAverageOrder() {
+        return orderCount == 0 ? 0 : (totalSales + orderCount / 2) / orderCount;
+    }
+
+    // Quantity sold per menu item, most sold first
+    public List<BestSellerTracker.Entry> getItems() { return items; }
+}
@@ -0,0 +1,482 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Versioned schema changes. The database's PRAGMA user_version is the number of
+// the last migration applied; on startup every newer migration runs, in order,
+// each in its own transaction together with the version bump, so a failed step
+// leaves the database at the previous version. Databases from before versioning
+// are at version 0, so every step checks what is already there before changing it.
+// To change the schema, append a migration with the next number.
+class SchemaMigrations {
+    private final DatabaseManager dbManager;
+
+    // One numbered schema change
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final DatabaseManager.SqlWork<Void> work;
+
+        Migration(int version, String description, DatabaseManager.SqlWork<Void> work) {
+            this.version = version;
+            this.description = description;
+            this.work = work;
+        }
+    }
+
+    private static final String CREATE_MENU_ITEMS = """
+        CREATE TABLE IF NOT EXISTS menu_items (
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            name TEXT NOT NULL,
+            price INTEGER NOT NULL,
+            stock INTEGER DEFAULT 0,
+            category TEXT NOT NULL,
+            spicy_level INTEGER DEFAULT 0,
+            is_hot INTEGER DEFAULT 0,
+            has_ice_cream INTEGER DEFAULT 0
+        )
+    """;
+
+    private static final String CREATE_ORDERS = """
+        CREATE TABLE IF NOT EXISTS orders (
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            timestamp TEXT NOT NULL,
+            created_at INTEGER,
+            status TEXT DEFAULT 'Pending',
+            payment_method TEXT,
+            payment_amount INTEGER,
+            total INTEGER,
+            tax INTEGER,
+            grand_total INTEGER
+        )
+    """;
+
+    private static final String CREATE_ORDER_ITEMS = """
+        CREATE TABLE IF NOT EXISTS order_items (
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            order_id INTEGER NOT NULL,
+            menu_item_id INTEGER NOT NULL,
+            menu_item_name TEXT NOT NULL,
+            quantity INTEGER NOT NULL,
+            price INTEGER NOT NULL,
+            subtotal INTEGER NOT NULL,
+            FOREIGN KEY (order_id) REFERENCES orders(id),
+            FOREIGN KEY (menu_item_id) REFERENCES menu_items(id)
+        )
+    """;
+
+    // Written by OrderArchiver: one row per month moved to an archive file, and
+    // that month's quantity sold per menu item
+    private static final String CREATE_ORDER_ARCHIVES = """
+        CREATE TABLE IF NOT EXISTS order_archives (
+            month TEXT PRIMARY KEY,
+            file TEXT NOT NULL,
+            from_time INTEGER NOT NULL,
+            to_time INTEGER NOT NULL,
+            order_count INTEGER NOT NULL,
+            total_sales INTEGER NOT NULL,
+            total_tax INTEGER NOT NULL,
+            first_order_id INTEGER,
+            last_order_id INTEGER
+        )
+    """;
+
+    private static final String CREATE_ARCHIVED_ITEM_SALES = """
+        CREATE TABLE IF NOT EXISTS archived_item_sales (
+            month TEXT NOT NULL,
+            menu_item_id INTEGER NOT NULL,
+            menu_item_name TEXT NOT NULL,
+            quantity INTEGER NOT NULL,
+            PRIMARY KEY (month, menu_item_id)
+        )
+    """;
+
+    // Last journal event projected into the tables (see OrderJournal), one row
+    private static final String CREATE_JOURNAL_STATE = """
+        CREATE TABLE IF NOT EXISTS journal_state (
+            id INTEGER PRIMARY KEY CHECK (id = 1),
+            sequence INTEGER NOT NULL,
+            end_offset INTEGER NOT NULL
+        )
+    """;
+
+    // Bumped by triggers on every change to orders, order_items and menu_items, one row
+    private static final String CREATE_DATA_CHANGES = """
+        CREATE TABLE IF NOT EXISTS data_changes (
+            id INTEGER PRIMARY KEY CHECK (id = 1),
+            counter INTEGER NOT NULL
+        )
+    """;
+
+    // Used by OutletSync. On an outlet: its name, the last order id shipped to
+    // the central database and the last batch number, one row. On the central
+    // database: which outlet order each merged order came from, the batches
+    // already merged, and which central menu item each outlet's menu item is.
+    private static final String CREATE_SYNC_STATE = """
+        CREATE TABLE IF NOT EXISTS sync_state (
+            id INTEGER PRIMARY KEY CHECK (id = 1),
+            outlet TEXT,
+            exported_order_id INTEGER NOT NULL,
+            batch_sequence INTEGER NOT NULL
+        )
+    """;
+
+    private static final String CREATE_OUTLET_ORDERS = """
+        CREATE TABLE IF NOT EXISTS outlet_orders (
+            outlet TEXT NOT NULL,
+            outlet_order_id INTEGER NOT NULL,
+            order_id INTEGER NOT NULL,
+            PRIMARY KEY (outlet, outlet_order_id)
+        ) WITHOUT ROWID
+    """;
+
+    private static final String CREATE_OUTLET_MENU_ITEMS = """
+        CREATE TABLE IF NOT EXISTS outlet_menu_items (
+            outlet TEXT NOT NULL,
+            outlet_menu_item_id INTEGER NOT NULL,
+            menu_item_id INTEGER NOT NULL,
+            PRIMARY KEY (outlet, outlet_menu_item_id)
+        ) WITHOUT ROWID
+    """;
+
+    private static final String CREATE_OUTLET_BATCHES = """
+        CREATE TABLE IF NOT EXISTS outlet_batches (
+            outlet TEXT NOT NULL,
+            batch_sequence INTEGER NOT NULL,
+            order_count INTEGER NOT NULL,
+            merged_count INTEGER NOT NULL,
+            merged_at INTEGER NOT NULL,
+            PRIMARY KEY (outlet, batch_sequence)
+        )
+    """;
+
+    private final List<Migration> migrations = List.of(
+            new Migration(1, "Create tables", this::createTables),
+            new Migration(2, "Money columns as INTEGER rupiah", this::migrateMoneyColumns),
+            new Migration(3, "Epoch created_at on orders", this::migrateOrderTimestamps),
+            new Migration(4, "Indexes for order lookups and reports", this::createReportIndexes),
+            new Migration(5, "Registry of monthly order archives", this::createArchiveTables),
+            new Migration(6, "Order journal position", this::createJournalState),
+            new Migration(7, "Data change counter", this::createChangeCounter),
+            new Migration(8, "Outlet sync state", this::createSyncTables),
+            new Migration(9, "SKU on menu items", this::addMenuItemSku),
+            new Migration(10, "Outlet menu item mapping", this::createOutletMenuItems));
+
+    public SchemaMigrations(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    // Bring the database up to the latest version; returns the number of migrations applied
+    public int migrate() throws SQLException {
+        int current = userVersion(dbManager.getConnection());
+        int applied = 0;
+        for (Migration migration : migrations) {
+            if (migration.version <= current) {
+                continue;
+            }
+            System.out.println("📝 Schema migration " + migration.version + ": " + migration.description);
+            dbManager.inTransaction(connection -> {
+                migration.work.run(connection);
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("PRAGMA user_version = " + migration.version);
+                }
+                return null;
+            });
+            applied++;
+        }
+
+        if (applied > 0) {
+            System.out.println("✅ Schema at version " + latestVersion());
+        }
+        if (applied > 0 || statisticsStale(dbManager.getConnection())) {
+            analyze(dbManager.getConnection());
+        }
+        return applied;
+    }
+
+    // Without statistics SQLite takes the orders(status, ...) index for every
+    // status filter, although nearly all orders are Completed, and then sorts
+    // the whole table to page by id. A new database is analyzed while still
+    // empty, so statistics are refreshed whenever orders has grown past twice
+    // the size they were taken at. Rows are counted rather than read off
+    // MAX(id), which keeps growing after old months are archived.
+    private static boolean statisticsStale(Connection connection) throws SQLException {
+        long analyzedRows = -1;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT stat FROM sqlite_stat1 WHERE idx = 'idx_orders_status_created_at'")) {
+            if (rs.next()) {
+                analyzedRows = Long.parseLong(rs.getString(1).split(" ")[0]);
+            }
+        } catch (SQLException e) {
+            // No sqlite_stat1 table yet: never analyzed
+        }
+        long rows;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM orders")) {
+            rows = rs.next() ? rs.getLong(1) : 0;
+        }
+        return rows > 0 && rows > analyzedRows * 2;
+    }
+
+    private static void analyze(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // Sample instead of reading every row, so this stays quick on a large history
+            stmt.execute("PRAGMA analysis_limit = 1000");
+            stmt.execute("ANALYZE");
+        }
+    }
+
+    public int latestVersion() {
+        return migrations.get(migrations.size() - 1).version;
+    }
+
+    private static int userVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private Void createTables(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(CREATE_MENU_ITEMS);
+            stmt.execute(CREATE_ORDERS);
+            stmt.execute(CREATE_ORDER_ITEMS);
+        }
+        return null;
+    }
+
+    // Databases created before money became whole rupiah store it in REAL columns.
+    // REAL affinity turns every integer written there back into a double, so the
+    // tables are rebuilt with INTEGER columns and the values rounded once.
+    private Void migrateMoneyColumns(Connection connection) throws SQLException {
+        if (!"REAL".equalsIgnoreCase(columnType(connection, "orders", "grand_total"))) {
+            return null;
+        }
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE order_items RENAME TO order_items_old");
+            stmt.execute("ALTER TABLE orders RENAME TO orders_old");
+            stmt.execute("ALTER TABLE menu_items RENAME TO menu_items_old");
+            stmt.execute(CREATE_MENU_ITEMS);
+            stmt.execute(CREATE_ORDERS);
+            stmt.execute(CREATE_ORDER_ITEMS);
+            stmt.execute("""
+                INSERT INTO menu_items (id, name, price, stock, category, spicy_level, is_hot, has_ice_cream)
+                SELECT id, name, CAST(ROUND(price) AS INTEGER), stock, category, spicy_level, is_hot, has_ice_cream
+                FROM menu_items_old
+            """);
+            stmt.execute("""
+                INSERT INTO orders (id, timestamp, status, payment_method, payment_amount, total, tax, grand_total)
+                SELECT id, timestamp, status, payment_method, CAST(ROUND(payment_amount) AS INTEGER),
+                       CAST(ROUND(total) AS INTEGER), CAST(ROUND(tax) AS INTEGER), CAST(ROUND(grand_total) AS INTEGER)
+                FROM orders_old
+            """);
+            stmt.execute("""
+                INSERT INTO order_items (id, order_id, menu_item_id, menu_item_name, quantity, price, subtotal)
+                SELECT id, order_id, menu_item_id, menu_item_name, quantity,
+                       CAST(ROUND(price) AS INTEGER), CAST(ROUND(subtotal) AS INTEGER)
+                FROM order_items_old
+            """);
+            stmt.execute("DROP TABLE order_items_old");
+            stmt.execute("DROP TABLE orders_old");
+            stmt.execute("DROP TABLE menu_items_old");
+        }
+        return null;
+    }
+
+    // Orders used to carry only their Date.toString() text, which cannot be sorted
+    // or range-queried. created_at holds epoch millis; rows from before it existed
+    // get it filled in once from the text.
+    private Void migrateOrderTimestamps(Connection connection) throws SQLException {
+        if (columnType(connection, "orders", "created_at") == null) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("ALTER TABLE orders ADD COLUMN created_at INTEGER");
+            }
+        }
+
+        // Ids were handed out in time order, so an order whose text cannot be read
+        // takes the time of the order before it, or of the next one if it is first
+        int count = 0;
+        ArrayList<Integer> unreadable = new ArrayList<>();
+        ArrayList<Integer> waiting = new ArrayList<>(); // Unreadable, before any readable order
+        long previous = -1;
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery(
+                     "SELECT id, timestamp FROM orders WHERE created_at IS NULL ORDER BY id");
+             PreparedStatement update = connection.prepareStatement("UPDATE orders SET created_at = ? WHERE id = ?")) {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                long createdAt = parseLegacyTimestamp(rs.getString(2));
+                if (createdAt < 0) {
+                    unreadable.add(id);
+                    if (previous < 0) {
+                        waiting.add(id);
+                        continue;
+                    }
+                    createdAt = previous;
+                } else {
+                    for (int waitingId : waiting) {
+                        update.setLong(1, createdAt);
+                        update.setInt(2, waitingId);
+                        update.addBatch();
+                    }
+                    count += waiting.size();
+                    waiting.clear();
+                    previous = createdAt;
+                }
+                update.setLong(1, createdAt);
+                update.setInt(2, id);
+                update.addBatch();
+                count++;
+            }
+            update.executeBatch();
+        }
+        if (count > 0) {
+            System.out.println("✅ Timestamps of " + count + " orders migrated");
+        }
+        if (!unreadable.isEmpty()) {
+            Metrics.counter("db.unreadableTimestamps").add(unreadable.size());
+            System.err.println("⚠️ " + unreadable.size() + " order timestamps could not be read, order ids "
+                    + summarize(unreadable) + (waiting.isEmpty() ? "; they were given a neighbouring order's time"
+                    : "; no order's time could be read, so they keep no created_at"));
+        }
+        return null;
+    }
+
+    // The first ids of a list, for a log line
+    private static String summarize(List<Integer> ids) {
+        String shown = ids.subList(0, Math.min(ids.size(), 10)).toString();
+        return ids.size() > 10 ? shown + " and " + (ids.size() - 10) + " more" : shown;
+    }
+
+    // Every report filters orders on status and time and joins order_items on
+    // order_id; best seller queries group order_items by menu_item_id
+    private Void createReportIndexes(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP INDEX IF EXISTS idx_orders_created_at"); // Covered by the index below
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_orders_status_created_at ON orders(status, created_at)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items(order_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_order_items_menu_item_id ON order_items(menu_item_id)");
+        }
+        return null;
+    }
+
+    private Void createArchiveTables(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(CREATE_ORDER_ARCHIVES);
+            stmt.execute(CREATE_ARCHIVED_ITEM_SALES);
+        }
+        return null;
+    }
+
+    private Void createJournalState(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(CREATE_JOURNAL_STATE);
+            stmt.execute("INSERT OR IGNORE INTO journal_state (id, sequence, end_offset) VALUES (1, 0, 0)");
+        }
+        return null;
+    }
+
+    // A state snapshot is only used while the counter still has the value it was
+    // saved with, so every write to these tables, from the app or from anything
+    // else, must bump it
+    private Void createChangeCounter(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(CREATE_DATA_CHANGES);
+            stmt.execute("INSERT OR IGNORE INTO data_changes (id, counter) VALUES (1, 0)");
+            for (String table : new String[] { "orders", "order_items", "menu_items" }) {
+                for (String event : new String[] { "INSERT", "UPDATE", "DELETE" }) {
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_" + event.toLowerCase() + "_changes"
+                            + " AFTER " + event + " ON " + table
+                            + " BEGIN UPDATE data_changes SET counter = counter + 1 WHERE id = 1; END");
+                }
+            }
+        }
+        return null;
+    }
+
+    private Void createSyncTables(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(CREATE_SYNC_STATE);
+            stmt.execute("INSERT OR IGNORE INTO sync_state (id, outlet, exported_order_id, batch_sequence)"
+                    + " VALUES (1, NULL, 0, 0)");
+            stmt.execute(CREATE_OUTLET_ORDERS);
+            stmt.execute(CREATE_OUTLET_BATCHES);
+        }
+        return null;
+    }
+
+    // Catalog imports (MenuCatalogImporter) match menu items on their SKU. Items
+    // added by hand have none; NULLs never clash in a unique index.
+    private Void addMenuItemSku(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            if (columnType(connection, "menu_items", "sku") == null) {
+                stmt.execute("ALTER TABLE menu_items ADD COLUMN sku TEXT");
+            }
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_menu_items_sku ON menu_items(sku)");
+        }
+        return null;
+    }
+
+    // Merged order lines point at central menu items; see OutletSync.MenuItemMap
+    private Void createOutletMenuItems(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(CREATE_OUTLET_MENU_ITEMS);
+        }
+        return null;
+    }
+
+    // orders and order_items with their lookup indexes in an attached database,
+    // for the monthly archive files
+    static void createOrderTables(Connection connection, String schema) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(CREATE_ORDERS.replace("EXISTS orders", "EXISTS " + schema + ".orders"));
+            stmt.execute(CREATE_ORDER_ITEMS.replace("EXISTS order_items", "EXISTS " + schema + ".order_items"));
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + schema
+                    + ".idx_orders_status_created_at ON orders(status, created_at)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + schema
+                    + ".idx_order_items_order_id ON order_items(order_id)");
+        }
+    }
+
+    // Epoch millis of a Date.toString() text such as "Mon Dec 15 13:58:27 ICT 2025",
+    // or -1 if it cannot be read. Zone names Java does not know are read as local time.
+    static long parseLegacyTimestamp(String text) {
+        if (text == null) {
+            return -1;
+        }
+        try {
+            return new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US).parse(text).getTime();
+        } catch (ParseException e) {
+            // Fall through to reading it without the zone
+        }
+        try {
+            String withoutZone = text.replaceFirst("(\\d{2}:\\d{2}:\\d{2}) \\S+ ", "$1 ");
+            return new SimpleDateFormat("EEE MMM dd HH:mm:ss yyyy", Locale.US).parse(withoutZone).getTime();
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    // Declared type of a column, or null if the table has no such column
+    private static String columnType(Connection connection, String table, String column) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equals(rs.getString("name"))) {
+                    return rs.getString("type");
+                }
+            }
+        }
+        return null;
+    }
+}
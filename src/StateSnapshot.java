@@ -0,0 +1,197 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Compact binary copy of what the app loads at startup: the menu with its stock
+// and the sales totals for the report tab. It is saved when the app closes and
+// on a timer, and a warm start reads it instead of querying the tables.
+// A snapshot carries the journal sequence projected and the data change counter
+// (see SchemaMigrations) of the moment it was taken; if either has moved since,
+// the database has changed and the app loads from the tables as before.
+//
+// Layout: magic(int) version(int) sequence(long) counter(long), the menu, the
+// order totals, all-time quantity per item, the last week's quantity per item
+// and day, then a CRC32 of everything before it. A file that fails the CRC,
+// e.g. cut short by a crash while being replaced, is simply not used.
+class StateSnapshot {
+    private static final int MAGIC = 0x434B534E; // "CKSN"
+    private static final int VERSION = 1;
+
+    private final File file;
+
+    // Menu and sales totals read back from a snapshot
+    static class State {
+        private final ArrayList<MenuItem> menu;
+        private final SalesAggregates aggregates;
+
+        State(ArrayList<MenuItem> menu, SalesAggregates aggregates) {
+            this.menu = menu;
+            this.aggregates = aggregates;
+        }
+
+        public ArrayList<MenuItem> getMenu() { return menu; }
+        public SalesAggregates getAggregates() { return aggregates; }
+    }
+
+    public StateSnapshot(File file) {
+        this.file = file;
+    }
+
+    // Encode the state as of counters (from DatabaseManager.loadChangeCounters).
+    // Runs on the thread that owns menu and aggregates, the EDT once the window is up.
+    public static byte[] capture(long[] counters, List<MenuItem> menu, SalesAggregates aggregates) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(counters[0]);
+            out.writeLong(counters[1]);
+
+            out.writeInt(menu.size());
+            for (MenuItem item : menu) {
+                out.writeInt(item.getId());
+                out.writeUTF(item.getName());
+                out.writeLong(item.getPrice());
+                out.writeInt(item.getStock());
+                out.writeUTF(item.getCategory());
+                out.writeInt(item instanceof Food ? ((Food) item).getSpicyLevel() : 0);
+                out.writeBoolean(item instanceof Beverage && ((Beverage) item).isHot());
+                out.writeBoolean(item instanceof Dessert && ((Dessert) item).hasIceCream());
+            }
+
+            out.writeInt(aggregates.getOrderCount());
+            out.writeLong(aggregates.getTotalSales());
+            ArrayList<BestSellerTracker.Entry> allTime = aggregates.getAllTimeBestSellers().top(Integer.MAX_VALUE);
+            out.writeInt(allTime.size());
+            for (BestSellerTracker.Entry entry : allTime) {
+                out.writeInt(entry.getMenuItemId());
+                out.writeUTF(entry.getName());
+                out.writeInt(entry.getQuantity());
+            }
+
+            ByteArrayOutputStream dayBytes = new ByteArrayOutputStream();
+            DataOutputStream days = new DataOutputStream(dayBytes);
+            int[] dayCount = { 0 };
+            aggregates.getLastWeekBestSellers().forEachDay((dayStart, menuItemId, name, quantity) -> {
+                try {
+                    days.writeLong(dayStart);
+                    days.writeInt(menuItemId);
+                    days.writeUTF(name);
+                    days.writeInt(quantity);
+                    dayCount[0]++;
+                } catch (IOException e) {
+                    throw new IllegalStateException(e); // In memory, cannot happen
+                }
+            });
+            out.writeInt(dayCount[0]);
+            dayBytes.writeTo(out);
+
+            out.flush();
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // In memory, cannot happen
+        }
+    }
+
+    // Replace the snapshot file with a capture; false if it could not be written
+    public boolean save(byte[] snapshot) {
+        long start = System.nanoTime();
+        Path target = file.toPath();
+        Path partial = target.resolveSibling(file.getName() + ".part");
+        try {
+            Files.write(partial, snapshot);
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            Metrics.counter("snapshot.errors").increment();
+            System.err.println("❌ Error saving snapshot " + file + ": " + e.getMessage());
+            return false;
+        } finally {
+            Metrics.timer("snapshot.save").stop(start);
+        }
+    }
+
+    // The saved state if the snapshot was taken at exactly these counters, or
+    // null if it is missing, damaged or stale
+    public State load(long[] counters) {
+        if (counters == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            if (bytes.length < 32 || !crcMatches(bytes)) {
+                Metrics.counter("snapshot.errors").increment();
+                System.err.println("⚠️ Snapshot " + file + " is damaged, loading from the database");
+                return null;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 8));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                System.out.println("⚠️ Snapshot " + file + " has another format, loading from the database");
+                return null;
+            }
+            if (in.readLong() != counters[0] || in.readLong() != counters[1]) {
+                Metrics.counter("snapshot.stale").increment();
+                System.out.println("🔄 Database changed since the last snapshot, loading from the database");
+                return null;
+            }
+
+            int menuSize = in.readInt();
+            ArrayList<MenuItem> menu = new ArrayList<>(menuSize);
+            for (int i = 0; i < menuSize; i++) {
+                MenuItem item = DatabaseManager.createMenuItem(in.readInt(), in.readUTF(), in.readLong(),
+                        in.readInt(), in.readUTF(), in.readInt(), in.readBoolean(), in.readBoolean());
+                if (item != null) {
+                    menu.add(item);
+                }
+            }
+
+            SalesAggregates aggregates = new SalesAggregates();
+            aggregates.setOrderTotals(in.readInt(), in.readLong());
+            int allTime = in.readInt();
+            for (int i = 0; i < allTime; i++) {
+                aggregates.addItemSales(in.readInt(), in.readUTF(), in.readInt());
+            }
+            int daySales = in.readInt();
+            for (int i = 0; i < daySales; i++) {
+                long dayStart = in.readLong();
+                aggregates.addRecentSale(in.readInt(), in.readUTF(), in.readInt(), dayStart);
+            }
+
+            System.out.println("⚡ Loaded " + menu.size() + " menu items and sales totals from snapshot");
+            return new State(menu, aggregates);
+        } catch (NoSuchFileException e) {
+            return null; // First start, or snapshots were deleted
+        } catch (IOException e) {
+            Metrics.counter("snapshot.errors").increment();
+            System.err.println("❌ Error reading snapshot " + file + ": " + e.getMessage());
+            return null;
+        } finally {
+            Metrics.timer("snapshot.load").stop(start);
+        }
+    }
+
+    private static boolean crcMatches(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        long stored = 0;
+        for (int i = bytes.length - 8; i < bytes.length; i++) {
+            stored = (stored << 8) | (bytes[i] & 0xFF);
+        }
+        return stored == crc.getValue();
+    }
+}
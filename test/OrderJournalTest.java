@@ -0,0 +1,211 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Projecting journal events into the tables when one of them fails, dropping
+// journal segments once they are projected, and replaying catalog imports. Runs on the database and
+// journal the surefire settings in pom.xml point at, which start empty; tests
+// share them, so each one works from the state it finds.
+class OrderJournalTest {
+    private static DatabaseManager dbManager;
+    private static ArrayList<MenuItem> menu;
+
+    @BeforeAll
+    static void createDatabase() throws IOException {
+        File dbFile = new File(System.getProperty("cektipis.db"));
+        File dir = dbFile.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        File[] leftovers = dir.listFiles();
+        for (File file : leftovers == null ? new File[0] : leftovers) {
+            if (!file.delete()) {
+                throw new IOException("Could not delete " + file);
+            }
+        }
+        dbManager = DatabaseManager.getInstance();
+        dbManager.initializeDatabase();
+        dbManager.seedMenuItems();
+        menu = dbManager.loadMenuItems();
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        dbManager.close();
+    }
+
+    @Test
+    void failedEventInGroupIsProjectedAfterRestart() throws Exception {
+        OrderJournal journal = OrderJournal.open(dbManager, dbManager.getJournalFile());
+        List<OrderJournal.Event> group = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            group.add(journal.append(OrderJournal.Event.checkout(paidOrder(i))));
+        }
+        int failing = group.get(1).getOrderId();
+        execute("CREATE TRIGGER fail_order BEFORE INSERT ON orders WHEN NEW.id = " + failing
+                + " BEGIN SELECT RAISE(ABORT, 'forced failure'); END");
+
+        // The event after the failed one is not applied, and the journal state stays before the failure
+        assertEquals(1, dbManager.applyJournal(group));
+        assertEquals(group.get(0).getSequence(), dbManager.loadJournalState()[0]);
+        assertTrue(orderExists(group.get(0).getOrderId()));
+        assertFalse(orderExists(failing));
+        assertFalse(orderExists(group.get(2).getOrderId()));
+        journal.close();
+
+        // While the cause remains, a restart refuses to skip the event
+        assertThrows(SQLException.class, () -> OrderJournal.open(dbManager, dbManager.getJournalFile()));
+
+        execute("DROP TRIGGER fail_order");
+        journal = OrderJournal.open(dbManager, dbManager.getJournalFile());
+        journal.close();
+        assertEquals(group.get(2).getSequence(), dbManager.loadJournalState()[0]);
+        for (OrderJournal.Event event : group) {
+            assertTrue(orderExists(event.getOrderId()), "order " + event.getOrderId() + " projected");
+        }
+    }
+
+    @Test
+    void writerRetriesFailedEventBeforeLaterOnes() throws Exception {
+        OrderJournal journal = OrderJournal.open(dbManager, dbManager.getJournalFile());
+        PersistenceExecutor persistence = new PersistenceExecutor(dbManager, journal, Runnable::run);
+        int[] orderIds = new int[2];
+        try {
+            execute("CREATE TRIGGER fail_restock BEFORE UPDATE OF stock ON menu_items"
+                    + " WHEN NEW.stock - OLD.stock = 7 BEGIN SELECT RAISE(ABORT, 'forced failure'); END");
+            persistence.submitRestock(menu.get(0).getId(), 7, () -> {}, e -> {});
+            persistence.submitCheckout(paidOrder(0), id -> orderIds[0] = id, e -> {});
+            persistence.submitCheckout(paidOrder(1), id -> orderIds[1] = id, e -> {});
+
+            Thread.sleep(500);
+            assertFalse(orderExists(orderIds[0]));
+            assertFalse(orderExists(orderIds[1]));
+
+            execute("DROP TRIGGER fail_restock");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (dbManager.loadJournalState()[0] < journal.getLastSequence()
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } finally {
+            persistence.shutdown();
+            journal.close();
+        }
+        assertEquals(journal.getLastSequence(), dbManager.loadJournalState()[0]);
+        assertTrue(orderExists(orderIds[0]));
+        assertTrue(orderExists(orderIds[1]));
+    }
+
+    @Test
+    void projectedSegmentsAreKept() throws Exception {
+        File journalFile = dbManager.getJournalFile();
+        OrderJournal journal = OrderJournal.open(dbManager, journalFile);
+        // Orders with very long item names fill a segment in a few dozen records
+        Food bulky = new Food("Nasi Goreng ".repeat(8000), 25000, 0, 1);
+        bulky.setId(menu.get(0).getId());
+        try {
+            while (OrderJournal.segmentFiles(journalFile).size() < 2) {
+                Order order = new Order();
+                order.addItemForLoading(bulky, 1);
+                order.setStatus("Completed");
+                order.setPaymentMethod("Cash");
+                order.setPaymentAmount(order.getGrandTotal());
+                journal.append(OrderJournal.Event.checkout(order));
+            }
+        } finally {
+            journal.close();
+        }
+
+        // A restart replays both segments and keeps them to rebuild the database from
+        journal = OrderJournal.open(dbManager, journalFile);
+        long last = journal.getLastSequence();
+        journal.close();
+        assertEquals(last, dbManager.loadJournalState()[0]);
+        assertEquals(2, OrderJournal.segmentFiles(journalFile).size());
+
+        // Appending continues in sequence after the restart
+        journal = OrderJournal.open(dbManager, journalFile);
+        try {
+            OrderJournal.Event event = journal.append(OrderJournal.Event.checkout(paidOrder(0)));
+            assertEquals(last + 1, event.getSequence());
+            assertEquals(1, dbManager.applyJournal(List.of(event)));
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    void catalogImportIsJournaledAndReplayed() throws Exception {
+        Path catalog = dbManager.getJournalFile().toPath().resolveSibling("catalog.csv");
+        Files.write(catalog, "sku,name,category,price,stock\nTEH-001,Es Teh,Beverage,5000,40\n"
+                .getBytes(StandardCharsets.UTF_8));
+        OrderJournal journal = OrderJournal.open(dbManager, dbManager.getJournalFile());
+        PersistenceExecutor persistence = new PersistenceExecutor(dbManager, journal, Runnable::run);
+        long before = journal.getLastSequence();
+        try {
+            MenuCatalogImporter importer = new MenuCatalogImporter(dbManager, persistence);
+            MenuCatalogImporter.Result result = importer.importFile(catalog);
+            assertEquals(1, result.getInserted());
+            assertEquals(40, result.getChanged().get(0).getStock());
+            assertEquals(before + 1, journal.getLastSequence());
+            assertEquals(before + 1, dbManager.loadJournalState()[0]);
+
+            // The same file again changes nothing, so nothing is journaled
+            result = importer.importFile(catalog);
+            assertEquals(1, result.getUnchanged());
+            assertEquals(before + 1, journal.getLastSequence());
+        } finally {
+            persistence.shutdown();
+            journal.close();
+        }
+
+        // Rebuilding from the journal brings the imported item back
+        execute("DELETE FROM menu_items WHERE sku = 'TEH-001'");
+        execute("UPDATE journal_state SET sequence = " + before + ", end_offset = 0 WHERE id = 1");
+        OrderJournal.open(dbManager, dbManager.getJournalFile()).close();
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT stock FROM menu_items WHERE sku = 'TEH-001'")) {
+            assertTrue(rs.next());
+            assertEquals(40, rs.getInt(1));
+        }
+    }
+
+    private static Order paidOrder(int first) {
+        Order order = new Order();
+        order.addItemForLoading(menu.get(first % menu.size()), 1);
+        order.addItemForLoading(menu.get((first + 1) % menu.size()), 2);
+        order.setStatus("Completed");
+        order.setPaymentMethod("Cash");
+        order.setPaymentAmount(order.getGrandTotal());
+        return order;
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static boolean orderExists(int orderId) throws SQLException {
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM orders WHERE id = " + orderId)) {
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+}